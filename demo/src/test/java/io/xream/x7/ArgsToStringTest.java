@@ -0,0 +1,135 @@
+package io.xream.x7;
+
+import com.alibaba.fastjson.annotation.JSONField;
+import io.xream.x7.cache.DefaultArgsToString;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * the L3 key of DefaultArgsToString: stable for equal args, different for any difference
+ */
+public class ArgsToStringTest {
+
+    private final DefaultArgsToString argsToString = new DefaultArgsToString();
+
+    @Test
+    public void equalArgsSameKey() {
+        String key = key("list", new Object[]{node(3, "a"), 5L, Arrays.asList("x", "y")});
+
+        assertEquals(32, key.length());
+        assertEquals(key, key("list", new Object[]{node(3, "a"), 5L, Arrays.asList("x", "y")}));
+        assertEquals(key, new DefaultArgsToString().get("list", new Object[]{node(3, "a"), 5L, Arrays.asList("x", "y")}));
+    }
+
+    @Test
+    public void differentArgsDifferentKey() {
+        String key = key("list", new Object[]{node(3, "a")});
+
+        assertNotEquals(key, key("find", new Object[]{node(3, "a")}));
+        assertNotEquals(key, key("list", new Object[]{node(3, "b")}));
+        assertNotEquals(key, key("list", new Object[]{node(3, "a"), null}));
+        assertNotEquals(key("list", new Object[]{1}), key("list", new Object[]{"1"}));
+        assertNotEquals(key("list", new Object[]{"ab", "c"}), key("list", new Object[]{"a", "bc"}));
+    }
+
+    @Test
+    public void differentOnlyDeepDifferentKey() {
+        assertNotEquals(key("list", new Object[]{node(20, "a")}), key("list", new Object[]{node(20, "b")}));
+    }
+
+    @Test
+    public void cyclicArgsHashed() {
+        Node node = node(2, "a");
+        node.getNext().getNext().setNext(node);
+        Map<String, Object> map = new HashMap<>();
+        map.put("self", map);
+
+        String key = key("list", new Object[]{node, map});
+
+        Node other = node(2, "a");
+        other.getNext().getNext().setNext(other);
+        Map<String, Object> otherMap = new HashMap<>();
+        otherMap.put("self", otherMap);
+        assertEquals(key, key("list", new Object[]{other, otherMap}));
+
+        Node notCyclic = node(2, "a");
+        notCyclic.getNext().getNext().setNext(node(2, "a"));
+        assertNotEquals(key, key("list", new Object[]{notCyclic, otherMap}));
+    }
+
+    @Test
+    public void skippedAsJson() {
+        Node node = node(0, "a");
+        node.setCache("x");
+        node.setIgnored("x");
+        Node other = node(0, "a");
+        other.setCache("y");
+        other.setIgnored("y");
+
+        assertEquals(key("list", new Object[]{node}), key("list", new Object[]{other}));
+    }
+
+    private String key(String prefix, Object[] args) {
+        return this.argsToString.get(prefix, args);
+    }
+
+    /**
+     * the head of depth + 1 nodes, the value in the last
+     */
+    private static Node node(int depth, String value) {
+        Node head = new Node();
+        Node node = head;
+        for (int i = 0; i < depth; i++) {
+            Node next = new Node();
+            node.setNext(next);
+            node = next;
+        }
+        node.setValue(value);
+        return head;
+    }
+
+    public static class Node {
+        private String value;
+        private Node next;
+        private transient String cache;
+        private String ignored;
+
+        public String getValue() {
+            return value;
+        }
+
+        public void setValue(String value) {
+            this.value = value;
+        }
+
+        public Node getNext() {
+            return next;
+        }
+
+        public void setNext(Node next) {
+            this.next = next;
+        }
+
+        public String getCache() {
+            return cache;
+        }
+
+        public void setCache(String cache) {
+            this.cache = cache;
+        }
+
+        @JSONField(serialize = false)
+        public String getIgnored() {
+            return ignored;
+        }
+
+        public void setIgnored(String ignored) {
+            this.ignored = ignored;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package io.xream.x7;
+
+import io.xream.x7.common.repository.X;
+import io.xream.x7.repository.dao.AsyncDaoImpl;
+import io.xream.x7.repository.dao.Dao;
+import io.xream.x7.repository.dialect.MySqlDialect;
+import io.xream.x7.repository.exception.PersistenceException;
+import io.xream.x7.repository.mapper.MapperFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * the coalescing and the permits of AsyncDaoImpl, by a Dao recording the batches
+ */
+public class AsyncDaoTest {
+
+    private final List<String> written = Collections.synchronizedList(new ArrayList<>());
+    private volatile CountDownLatch createEntered;
+    private volatile CountDownLatch createBlocked;
+
+    private AsyncDaoImpl asyncDao;
+
+    @Before
+    public void setUp() {
+        MapperFactory.Dialect = new MySqlDialect();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (this.createBlocked != null) {
+            this.createBlocked.countDown();
+        }
+        if (this.asyncDao != null) {
+            this.asyncDao.destroy();
+        }
+    }
+
+    @Test
+    public void createThenRemoveIsNoOp() throws Exception {
+        asyncDao(100, 100, 100);
+
+        asyncDao.create(new Pet(1, "a"));
+        asyncDao.remove(new Pet(1, "a"));
+        assertEquals(0, asyncDao.getQueueDepth());
+
+        asyncDao.destroy();
+        assertEquals(Collections.emptyList(), written);
+    }
+
+    @Test
+    public void removeThenCreateIsDeleteThenInsert() throws Exception {
+        asyncDao(100, 100, 100);
+
+        asyncDao.remove(new Pet(1, "a"));
+        asyncDao.create(new Pet(1, "b"));
+
+        asyncDao.destroy();
+        assertEquals(Arrays.asList("removeBatch[1]", "createBatch[1:b]"), written);
+    }
+
+    @Test
+    public void lastRefreshWins() throws Exception {
+        asyncDao(100, 100, 100);
+
+        asyncDao.refresh(new Pet(1, "a"));
+        asyncDao.refresh(new Pet(2, "x"));
+        asyncDao.refresh(new Pet(1, "b"));
+        assertEquals(2, asyncDao.getQueueDepth());
+
+        asyncDao.destroy();
+        assertEquals(Collections.singletonList("refreshFullBatch[1:b, 2:x]"), written);
+    }
+
+    @Test
+    public void permitsBackToCapacityAfterFlush() throws Exception {
+        asyncDao(10, 10, 100);
+
+        for (int i = 1; i <= 4; i++) {
+            asyncDao.create(new Pet(i, "a"));
+        }
+        asyncDao.create(new Pet(5, "a"));
+        asyncDao.remove(new Pet(5, "a"));
+        asyncDao.refresh(new Pet(6, "a"));
+        asyncDao.refresh(new Pet(6, "b"));
+        assertEquals(10 - 5, permits().availablePermits());
+
+        asyncDao.doImmediately();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (asyncDao.getFlushedCount() < 5 && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+
+        assertEquals(5, asyncDao.getFlushedCount());
+        assertEquals(0, asyncDao.getQueueDepth());
+        assertEquals(10, permits().availablePermits());
+    }
+
+    @Test
+    public void producerBlockedWhenFull() throws Exception {
+        asyncDao(2, 2, 500);
+        this.createEntered = new CountDownLatch(1);
+        this.createBlocked = new CountDownLatch(1);
+
+        asyncDao.create(new Pet(1, "a"));
+        asyncDao.create(new Pet(2, "a"));
+        assertTrue(createEntered.await(5, TimeUnit.SECONDS));
+
+        asyncDao.create(new Pet(3, "a"));
+        asyncDao.create(new Pet(4, "a"));
+
+        long startTime = System.currentTimeMillis();
+        try {
+            asyncDao.create(new Pet(5, "a"));
+            fail("not blocked by the full pipelines");
+        } catch (PersistenceException e) {
+        }
+        assertTrue(System.currentTimeMillis() - startTime >= 400);
+
+        final Throwable[] failed = {null};
+        Thread producer = new Thread(() -> {
+            try {
+                asyncDao.create(new Pet(6, "a"));
+            } catch (Throwable e) {
+                failed[0] = e;
+            }
+        });
+        producer.start();
+        TimeUnit.MILLISECONDS.sleep(50);
+        assertTrue(producer.isAlive());
+
+        createBlocked.countDown();
+        producer.join(5000);
+        assertFalse(producer.isAlive());
+        assertNull(failed[0]);
+    }
+
+    private void asyncDao(int batchSize, int capacity, long blockTimeout) {
+        AsyncDaoImpl asyncDao = new AsyncDaoImpl();
+        asyncDao.setDao(stub(Dao.class));
+        asyncDao.setDataSource(stub(DataSource.class));
+        asyncDao.setBatchSize(batchSize);
+        asyncDao.setCapacity(capacity);
+        asyncDao.setBlockTimeout(blockTimeout);
+        asyncDao.setFlushInterval(60000);
+        asyncDao.setWriters(1);
+        asyncDao.afterPropertiesSet();
+        this.asyncDao = asyncDao;
+    }
+
+    private Semaphore permits() throws Exception {
+        Field field = AsyncDaoImpl.class.getDeclaredField("permits");
+        field.setAccessible(true);
+        return (Semaphore) field.get(this.asyncDao);
+    }
+
+    /**
+     * Dao: the batches recorded, createBatch blocked if createBlocked; <br>
+     * the others: nothing done, default values returned
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T stub(Class<T> clz) {
+        return (T) Proxy.newProxyInstance(clz.getClassLoader(), new Class[]{clz}, (proxy, method, args) -> {
+            String name = method.getName();
+            if (clz == Dao.class && name.endsWith("Batch")) {
+                List<?> list = (List<?>) args[args.length - 1];
+                written.add(name + list.stream().map(String::valueOf).collect(Collectors.toList()));
+                if (name.equals("createBatch") && createBlocked != null) {
+                    createEntered.countDown();
+                    createBlocked.await();
+                }
+                return new int[list.size()];
+            }
+            Class<?> type = method.getReturnType();
+            if (type.isInterface())
+                return stub(type);
+            if (type == boolean.class)
+                return false;
+            if (type == int.class)
+                return 0;
+            if (type == long.class)
+                return 0L;
+            return null;
+        });
+    }
+
+    public static class Pet {
+        @X.Key
+        private long id;
+        private String name;
+
+        public Pet() {
+        }
+
+        private Pet(long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public void setId(long id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String toString() {
+            return id + ":" + name;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package io.xream.x7;
+
+import io.xream.x7.repository.id.DefaultIdGeneratorService;
+import io.xream.x7.repository.id.IdGenerator;
+import io.xream.x7.repository.id.IdGeneratorPolicy;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * the segments of DefaultIdGeneratorService, by a policy counting in memory
+ */
+public class IdGeneratorTest {
+
+    private final static String CLZ_NAME = "Cat";
+
+    @Test
+    public void segmentIdsUniqueAcrossThreads() throws Exception {
+        CountingPolicy policy = new CountingPolicy(true);
+        DefaultIdGeneratorService service = new DefaultIdGeneratorService();
+        service.setIdGeneratorPolicy(policy);
+        service.setSegmentSize(100);
+
+        int threads = 8;
+        int perThread = 1000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<List<Long>>> futureList = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futureList.add(executor.submit(() -> {
+                List<Long> idList = new ArrayList<>(perThread);
+                for (int i = 0; i < perThread; i++) {
+                    idList.add(service.createId(CLZ_NAME));
+                }
+                return idList;
+            }));
+        }
+        Set<Long> idSet = new HashSet<>();
+        for (Future<List<Long>> future : futureList) {
+            List<Long> idList = future.get(10, TimeUnit.SECONDS);
+            for (int i = 1; i < idList.size(); i++) {
+                assertTrue(idList.get(i) > idList.get(i - 1));
+            }
+            idSet.addAll(idList);
+        }
+        executor.shutdown();
+
+        assertEquals(threads * perThread, idSet.size());
+        assertTrue(Collections.max(idSet) <= policy.counter.get());
+        assertEquals(0, policy.createCount.get());
+        assertTrue(policy.reserveCount.get() <= threads * perThread / 100 + 1);
+    }
+
+    @Test
+    public void segmentOfOneIncrement() {
+        CountingPolicy policy = new CountingPolicy(true);
+        List<Long> ceilingList = new ArrayList<>();
+        DefaultIdGeneratorService service = new DefaultIdGeneratorService();
+        service.setIdGeneratorPolicy(policy);
+        service.setSegmentSize(10);
+        service.setSegmentListener((clzName, ceiling) -> ceilingList.add(ceiling));
+
+        for (long i = 1; i <= 10; i++) {
+            assertEquals(i, service.createId(CLZ_NAME));
+        }
+
+        assertEquals(10, ceilingList.get(0).longValue());
+    }
+
+    @Test
+    public void withoutSegmentOneCreateIdPerId() {
+        CountingPolicy policy = new CountingPolicy(false);
+        DefaultIdGeneratorService service = new DefaultIdGeneratorService();
+        service.setIdGeneratorPolicy(policy);
+        service.setSegmentSize(100);
+
+        for (long i = 1; i <= 5; i++) {
+            assertEquals(i, service.createId(CLZ_NAME));
+        }
+
+        assertEquals(5, policy.createCount.get());
+        assertEquals(0, policy.reserveCount.get());
+    }
+
+    @Test
+    public void defaultReserveOwnsTheSegment() {
+        AtomicLong counter = new AtomicLong();
+        Set<Long> ownIdSet = new HashSet<>();
+        IdGeneratorPolicy policy = new IdGeneratorPolicy() {
+            @Override
+            public long createId(String clzName) {
+                if (counter.get() < 12 && counter.get() % 4 == 2) {
+                    counter.incrementAndGet(); // taken by another node
+                }
+                long id = counter.incrementAndGet();
+                ownIdSet.add(id);
+                return id;
+            }
+
+            @Override
+            public void onStart(List<IdGenerator> idGeneratorList) {
+            }
+        };
+
+        assertEquals(1, policy.reserve(CLZ_NAME, 1));
+
+        long ceiling = policy.reserve(CLZ_NAME, 5);
+        assertTrue(ceiling > 12);
+        for (long id = ceiling - 4; id <= ceiling; id++) {
+            assertTrue(ownIdSet.contains(id));
+        }
+    }
+
+    private static class CountingPolicy implements IdGeneratorPolicy {
+
+        private final boolean segmentSupported;
+        private final AtomicLong counter = new AtomicLong();
+        private final AtomicInteger createCount = new AtomicInteger();
+        private final AtomicInteger reserveCount = new AtomicInteger();
+
+        private CountingPolicy(boolean segmentSupported) {
+            this.segmentSupported = segmentSupported;
+        }
+
+        @Override
+        public long createId(String clzName) {
+            createCount.incrementAndGet();
+            return counter.incrementAndGet();
+        }
+
+        @Override
+        public long reserve(String clzName, int size) {
+            reserveCount.incrementAndGet();
+            return counter.addAndGet(size);
+        }
+
+        @Override
+        public boolean isSegmentSupported() {
+            return segmentSupported;
+        }
+
+        @Override
+        public void onStart(List<IdGenerator> idGeneratorList) {
+        }
+    }
+}
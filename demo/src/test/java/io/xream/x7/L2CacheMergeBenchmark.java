@@ -0,0 +1,230 @@
+package io.xream.x7;
+
+import io.xream.x7.cache.DefaultL2CacheResolver;
+import io.xream.x7.common.bean.Parsed;
+import io.xream.x7.common.bean.Parser;
+import io.xream.x7.common.bean.condition.InCondition;
+import io.xream.x7.common.cache.L2CacheStorage;
+import io.xream.x7.common.repository.X;
+import io.xream.x7.common.util.BeanUtilX;
+import io.xream.x7.repository.QueryForCache;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * the timing of the partial-miss merge of DefaultL2CacheResolver, at 50, 500 and 5000 rows: <br>
+ * nestedLoop: the merge before, each key searched in the list, the cache key of each row computed per comparison <br>
+ * keyIndex: the merge now, toMap + sort of DefaultL2CacheResolver <br>
+ * listUnderProtection: the whole partial-miss read, 1/10 rows replenished, by a storage in memory <br>
+ * run by main(), not by the build
+ */
+public class L2CacheMergeBenchmark {
+
+    private final static int[] ROWS = {50, 500, 5000};
+    private final static long WARMUP_MILLIS = 2000;
+    private final static long MEASURE_MILLIS = 3000;
+
+    private static volatile Object blackhole;
+
+    public static void main(String[] args) throws Exception {
+        DefaultL2CacheResolver.enabled();
+        DefaultL2CacheResolver.setValidSecond(60);
+        Parsed parsed = Parser.get(Pet.class);
+
+        DefaultL2CacheResolver resolver = new DefaultL2CacheResolver();
+        Method toMap = DefaultL2CacheResolver.class.getDeclaredMethod("toMap", List.class, Parsed.class);
+        Method sort = DefaultL2CacheResolver.class.getDeclaredMethod("sort", List.class, Map.class);
+        toMap.setAccessible(true);
+        sort.setAccessible(true);
+
+        System.out.printf("%6s %16s %16s %22s%n", "rows", "nestedLoop(us)", "keyIndex(us)", "listUnderProtection(us)");
+        for (int rows : ROWS) {
+            List<Pet> petList = pets(rows);
+            List<String> keyList = new ArrayList<>(rows);
+            for (Pet pet : petList) {
+                keyList.add(String.valueOf(pet.getId()));
+            }
+            List<Pet> shuffled = new ArrayList<>(petList);
+            Collections.shuffle(shuffled, new Random(rows));
+
+            double nestedLoop = time(() -> blackhole = nestedLoop(keyList, new ArrayList<>(shuffled), parsed));
+            double keyIndex = time(() -> blackhole = sort.invoke(resolver, keyList, toMap.invoke(resolver, shuffled, parsed)));
+            double listUnderProtection = timeListUnderProtection(petList);
+
+            System.out.printf("%6d %16.1f %16.1f %22.1f%n", rows, nestedLoop, keyIndex, listUnderProtection);
+        }
+    }
+
+    /**
+     * the sort before, for the comparison only
+     */
+    private static <T> List<T> nestedLoop(List<String> keyList, List<T> list, Parsed parsed) {
+        List<T> sortedList = new ArrayList<T>();
+        for (String key : keyList) {
+            Iterator<T> ite = list.iterator();
+            while (ite.hasNext()) {
+                T t = ite.next();
+                if (key.equals(BeanUtilX.getCacheKey(t, parsed))) {
+                    ite.remove();
+                    sortedList.add(t);
+                    break;
+                }
+            }
+        }
+        return sortedList;
+    }
+
+    private static double timeListUnderProtection(List<Pet> petList) throws Exception {
+        MemoryStorage storage = new MemoryStorage();
+        DefaultL2CacheResolver resolver = new DefaultL2CacheResolver();
+        resolver.setCacheStorage(storage);
+
+        Map<Long, Pet> petMap = new HashMap<>();
+        for (Pet pet : petList) {
+            petMap.put(pet.getId(), pet);
+        }
+        QueryForCache queryForCache = new QueryForCache() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> List<T> in(InCondition inCondition) {
+                List<T> list = new ArrayList<>();
+                for (Object id : inCondition.getInList()) {
+                    list.add((T) petMap.get(id));
+                }
+                return list;
+            }
+        };
+        String condition = "all";
+        resolver.listUnderProtection(Pet.class, condition, queryForCache, () -> petList);
+        resolver.listUnderProtection(Pet.class, condition, queryForCache, () -> petList); // all replenished
+
+        List<String> evictedKeyList = new ArrayList<>();
+        for (String key : storage.map.keySet()) {
+            int i = key.lastIndexOf('.');
+            if (key.startsWith("{" + Pet.class.getName() + "}") && i > 0) {
+                String id = key.substring(i + 1);
+                if (id.matches("\\d+") && Long.parseLong(id) % 10 == 0) {
+                    evictedKeyList.add(key);
+                }
+            }
+        }
+        if (evictedKeyList.size() != petList.size() / 10)
+            throw new IllegalStateException("rows not cached as expected: " + evictedKeyList.size());
+
+        return time(() -> {
+            for (String key : evictedKeyList) {
+                storage.map.remove(key);
+            }
+            List<Pet> list = resolver.listUnderProtection(Pet.class, condition, queryForCache, () -> petList);
+            if (list.size() != petList.size())
+                throw new IllegalStateException("merged: " + list.size());
+            blackhole = list;
+        });
+    }
+
+    /**
+     * the average of one op in microseconds, after the warmup
+     */
+    private static double time(Op op) throws Exception {
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WARMUP_MILLIS);
+        while (System.nanoTime() < end) {
+            op.run();
+        }
+        long ops = 0;
+        long startTime = System.nanoTime();
+        end = startTime + TimeUnit.MILLISECONDS.toNanos(MEASURE_MILLIS);
+        long now;
+        do {
+            op.run();
+            ops++;
+            now = System.nanoTime();
+        } while (now < end);
+        return (now - startTime) / 1000.0 / ops;
+    }
+
+    private static List<Pet> pets(int rows) {
+        List<Pet> list = new ArrayList<>(rows);
+        for (int i = 1; i <= rows; i++) {
+            list.add(new Pet(i, "pet" + i));
+        }
+        return list;
+    }
+
+    private interface Op {
+        void run() throws Exception;
+    }
+
+    private static class MemoryStorage implements L2CacheStorage {
+
+        private final Map<String, String> map = new ConcurrentHashMap<>();
+
+        @Override
+        public boolean set(String key, String time) {
+            map.put(key, time);
+            return true;
+        }
+
+        @Override
+        public boolean delete(String key) {
+            return map.remove(key) != null;
+        }
+
+        @Override
+        public Set<String> keys(String key) {
+            return new HashSet<>(map.keySet());
+        }
+
+        @Override
+        public String get(String nsKey) {
+            return map.get(nsKey);
+        }
+
+        @Override
+        public boolean set(String key, String toJson, int validSecond, TimeUnit timeUnit) {
+            map.put(key, toJson);
+            return true;
+        }
+
+        @Override
+        public List<String> multiGet(List<String> keyArr) {
+            List<String> list = new ArrayList<>(keyArr.size());
+            for (String key : keyArr) {
+                list.add(map.get(key));
+            }
+            return list;
+        }
+    }
+
+    public static class Pet {
+        @X.Key
+        private long id;
+        private String name;
+
+        public Pet() {
+        }
+
+        private Pet(long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public void setId(long id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+}
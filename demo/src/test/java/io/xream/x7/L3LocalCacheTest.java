@@ -0,0 +1,95 @@
+package io.xream.x7;
+
+import io.xream.x7.cache.L3LocalCache;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * the bounds and the eviction of L3LocalCache, 16 segments
+ */
+public class L3LocalCacheTest {
+
+    @Test
+    public void boundedBySize() {
+        L3LocalCache cache = new L3LocalCache(32, Long.MAX_VALUE);
+        for (int i = 0; i < 1000; i++) {
+            cache.put("key" + i, "value", 1, TimeUnit.MINUTES);
+        }
+
+        assertTrue(cache.size() <= 32);
+        assertEquals(1000 - cache.size(), cache.getEvictionCount());
+    }
+
+    @Test
+    public void boundedByWeight() {
+        L3LocalCache cache = new L3LocalCache(100000, 16 * 20);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(String.format("k%03d", i), "1234567", 1, TimeUnit.MINUTES); // weight 11
+        }
+
+        assertTrue(cache.size() <= 16);
+        assertEquals(1000 - cache.size(), cache.getEvictionCount());
+    }
+
+    @Test
+    public void leastRecentlyUsedEvicted() {
+        L3LocalCache cache = new L3LocalCache(32, Long.MAX_VALUE);
+        List<String> keyList = keysOfOneSegment(3);
+        String a = keyList.get(0), b = keyList.get(1), c = keyList.get(2);
+
+        cache.put(a, "a", 1, TimeUnit.MINUTES);
+        cache.put(b, "b", 1, TimeUnit.MINUTES);
+        assertEquals("a", cache.get(a));
+        cache.put(c, "c", 1, TimeUnit.MINUTES);
+
+        assertEquals("a", cache.get(a));
+        assertNull(cache.get(b));
+        assertEquals("c", cache.get(c));
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    public void expiredOnReading() throws Exception {
+        L3LocalCache cache = new L3LocalCache(32, Long.MAX_VALUE);
+        cache.put("a", "a", 1, TimeUnit.MILLISECONDS);
+        cache.put("b", "b", 1, TimeUnit.MINUTES);
+        TimeUnit.MILLISECONDS.sleep(10);
+
+        assertNull(cache.get("a"));
+        assertEquals("b", cache.get("b"));
+        assertEquals(1, cache.getExpiredCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void notCachedIfNullOrNotExpiring() {
+        L3LocalCache cache = new L3LocalCache(32, Long.MAX_VALUE);
+        cache.put("a", null, 1, TimeUnit.MINUTES);
+        cache.put("b", "b", 0, TimeUnit.MINUTES);
+
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * the keys of the same segment, by the spreading of L3LocalCache
+     */
+    private static List<String> keysOfOneSegment(int count) {
+        List<String> keyList = new ArrayList<>();
+        for (int i = 0; keyList.size() < count; i++) {
+            String key = "key" + i;
+            int h = key.hashCode();
+            h ^= (h >>> 16);
+            if ((h & 15) == 0) {
+                keyList.add(key);
+            }
+        }
+        return keyList;
+    }
+}
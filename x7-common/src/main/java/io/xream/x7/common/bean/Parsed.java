@@ -45,6 +45,9 @@ public class Parsed {
 	private Map<String,String> mapperPropertyMapLower = new HashMap<String,String>();
 	
 	private boolean isNoCache;
+	private boolean isNearCache;
+	private int nearCacheExpireSeconds;
+	private int nearCacheMaxSize;
 
 
 	public Class getClz() {
@@ -194,6 +197,30 @@ public class Parsed {
 		this.isNoCache = isNoCache;
 	}
 
+	public boolean isNearCache() {
+		return isNearCache;
+	}
+
+	public void setNearCache(boolean isNearCache) {
+		this.isNearCache = isNearCache;
+	}
+
+	public int getNearCacheExpireSeconds() {
+		return nearCacheExpireSeconds;
+	}
+
+	public void setNearCacheExpireSeconds(int nearCacheExpireSeconds) {
+		this.nearCacheExpireSeconds = nearCacheExpireSeconds;
+	}
+
+	public int getNearCacheMaxSize() {
+		return nearCacheMaxSize;
+	}
+
+	public void setNearCacheMaxSize(int nearCacheMaxSize) {
+		this.nearCacheMaxSize = nearCacheMaxSize;
+	}
+
 
 	public String getMapper(String property) {
 		return propertyMapperMap.get(property);
@@ -238,6 +265,7 @@ public class Parsed {
 				", propertyMapperMap=" + propertyMapperMap +
 				", mapperPropertyMap=" + mapperPropertyMap +
 				", isNoCache=" + isNoCache +
+				", isNearCache=" + isNearCache +
 				'}';
 	}
 }
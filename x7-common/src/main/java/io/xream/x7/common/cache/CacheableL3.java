@@ -27,5 +27,17 @@ public @interface CacheableL3 {
     int expireTime() default  0;
     TimeUnit timeUnit() default TimeUnit.MILLISECONDS;
     String condition() default "";
+    /**
+     * stale-while-revalidate, less than expireTime, same timeUnit <br>
+     * after staleTime, the cached returned, and refreshed in background <br>
+     * 0: not stale, wait for loading after expireTime
+     */
+    int staleTime() default 0;
+    /**
+     * batch mode, the property of element returned, like "id" <br>
+     * the method with a Collection argument of keys, returns List <br>
+     * cached per element, only the keys missed passed to the method
+     */
+    String perElementKey() default "";
 
 }
@@ -0,0 +1,36 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.xream.x7.common.cache;
+
+/**
+ * value codec of L2 cache<br>
+ * decode return null if the bytes can not be decoded, as not cached
+ */
+public interface L2CacheCodec {
+
+    byte[] encode(Object obj);
+
+    /**
+     * encoded as the clz decoded later, the obj may be a subclass or a proxy of it <br>
+     * default: encode(obj)
+     */
+    default byte[] encode(Object obj, Class clz) {
+        return encode(obj);
+    }
+
+    <T> T decode(byte[] bytes, Class<T> clz);
+}
@@ -33,6 +33,7 @@ public interface L2CacheResolver extends Protection{
 
 	void setL2CacheConsistency(L2CacheConsistency l2CacheConsistency);
 	void setCacheStorage(L2CacheStorage cacheStorage);
+	void setCodec(L2CacheCodec codec);
 
 	boolean isEnabled();
 	/**
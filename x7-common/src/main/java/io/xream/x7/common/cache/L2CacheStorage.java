@@ -16,7 +16,11 @@
  */
 package io.xream.x7.common.cache;
 
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
@@ -33,4 +37,56 @@ public interface L2CacheStorage {
 
     List<String> multiGet(List<String> keyArr);
 
+    /**
+     * one round trip for all of the map <br>
+     * default: set one by one
+     */
+    default boolean multiSet(Map<String, String> map, int validSecond, TimeUnit timeUnit) {
+        boolean flag = true;
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            flag &= set(entry.getKey(), entry.getValue(), validSecond, timeUnit);
+        }
+        return flag;
+    }
+
+    /**
+     * default: Base64 over get, for the storage of String only
+     */
+    default byte[] getBytes(String key) {
+        String value = get(key);
+        return value == null ? null : Base64.getDecoder().decode(value);
+    }
+
+    /**
+     * default: Base64 over set, for the storage of String only
+     */
+    default boolean setBytes(String key, byte[] value, int validSecond, TimeUnit timeUnit) {
+        return set(key, Base64.getEncoder().encodeToString(value), validSecond, timeUnit);
+    }
+
+    /**
+     * default: Base64 over multiGet, for the storage of String only
+     */
+    default List<byte[]> multiGetBytes(List<String> keyList) {
+        List<String> valueList = multiGet(keyList);
+        if (valueList == null)
+            return null;
+        List<byte[]> list = new ArrayList<>(valueList.size());
+        for (String value : valueList) {
+            list.add(value == null ? null : Base64.getDecoder().decode(value));
+        }
+        return list;
+    }
+
+    /**
+     * default: Base64 over multiSet, for the storage of String only
+     */
+    default boolean multiSetBytes(Map<String, byte[]> map, int validSecond, TimeUnit timeUnit) {
+        Map<String, String> strMap = new LinkedHashMap<>(map.size() * 4 / 3 + 1);
+        for (Map.Entry<String, byte[]> entry : map.entrySet()) {
+            strMap.put(entry.getKey(), Base64.getEncoder().encodeToString(entry.getValue()));
+        }
+        return multiSet(strMap, validSecond, timeUnit);
+    }
+
 }
@@ -62,6 +62,20 @@ public @interface X {
 	@Target({ElementType.TYPE})
 	@interface NoCache{
 	}
+
+	/**
+	 *
+	 * cached in process, in front of cache two<br>
+	 * for hot and small table, like config, catalog<br>
+	 * expireSeconds: local time to live<br>
+	 * maxSize: max entries of the class, LRU evicted<br>
+	 */
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({ElementType.TYPE})
+	@interface NearCache{
+		int expireSeconds() default 10;
+		int maxSize() default 1000;
+	}
 	
 	/**
 	 * 
@@ -225,6 +225,12 @@ public class BeanUtilX extends BeanUtil {
 		if (p != null) {
 			parsed.setNoCache(true);
 		}
+		X.NearCache n = (X.NearCache) clz.getAnnotation(X.NearCache.class);
+		if (n != null) {
+			parsed.setNearCache(true);
+			parsed.setNearCacheExpireSeconds(n.expireSeconds());
+			parsed.setNearCacheMaxSize(n.maxSize());
+		}
 	}
 
 
@@ -17,8 +17,16 @@
 package io.xream.x7.common.util;
 
 import com.alibaba.fastjson.JSON;
-
+import com.alibaba.fastjson.JSONReader;
+import com.alibaba.fastjson.util.ParameterizedTypeImpl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PushbackInputStream;
+import java.lang.reflect.Type;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 /**
@@ -77,6 +85,40 @@ public class JsonX {
 		return JSON.parseObject(json, clz);
 	}
 	
+	/**
+	 * parse UTF-8 json from the stream by JSONReader, chunk by chunk, <br>
+	 * without reading the whole body into byte[] or String
+	 */
+	public static <T> T toObject(InputStream in, Class<T> clz) throws IOException {
+		return read(in, clz);
+	}
+
+	/**
+	 * parse UTF-8 json array from the stream by JSONReader, chunk by chunk, <br>
+	 * without reading the whole body into byte[] or String
+	 */
+	public static <T> List<T> toList(InputStream in, Class<T> clz) throws IOException {
+		Type type = new ParameterizedTypeImpl(new Type[]{clz}, null, List.class);
+		List<T> list = read(in, type);
+		return list == null ? new ArrayList<T>() : list;
+	}
+
+	private static <T> T read(InputStream in, Type type) throws IOException {
+		if (in == null)
+			return null;
+		PushbackInputStream pin = new PushbackInputStream(in);
+		int b = pin.read();
+		if (b == -1)
+			return null;
+		pin.unread(b);
+		JSONReader reader = new JSONReader(new InputStreamReader(pin, StandardCharsets.UTF_8));
+		try {
+			return reader.readObject(type);
+		} finally {
+			reader.close();
+		}
+	}
+
 	public static <T> T toObject(Object jsonObject, Class<T> clz){
 		if (Objects.isNull(jsonObject))
 			return null;
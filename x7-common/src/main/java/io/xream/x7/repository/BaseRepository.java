@@ -16,13 +16,20 @@
  */
 package io.xream.x7.repository;
 
+import io.xream.x7.common.bean.BeanElement;
 import io.xream.x7.common.bean.Criteria;
+import io.xream.x7.common.bean.Parsed;
+import io.xream.x7.common.bean.Parser;
 import io.xream.x7.common.bean.RowHandler;
 import io.xream.x7.common.bean.condition.InCondition;
 import io.xream.x7.common.bean.condition.RefreshCondition;
 import io.xream.x7.common.bean.condition.RemoveOrRrefreshOrCreate;
+import io.xream.x7.common.repository.X;
+import io.xream.x7.common.util.ExceptionUtil;
 import io.xream.x7.common.web.Page;
 
+import java.sql.Statement;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -40,6 +47,72 @@ public interface BaseRepository<T> extends Typed<T> {
 
     boolean createBatch(List<T> objList);
 
+    /**
+     * @return per row, the count updated, or Statement.SUCCESS_NO_INFO, or Statement.EXECUTE_FAILED <br>
+     * default: by createBatch, without the count of each row
+     */
+    default int[] createBatchCounts(List<T> objList) {
+        int[] result = new int[objList.size()];
+        Arrays.fill(result, createBatch(objList) ? Statement.SUCCESS_NO_INFO : Statement.EXECUTE_FAILED);
+        return result;
+    }
+
+    /**
+     * @return per row, the count updated, or Statement.SUCCESS_NO_INFO <br>
+     * default: createOrReplace one by one
+     */
+    default int[] createOrReplaceBatch(List<T> objList) {
+        int[] result = new int[objList.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = createOrReplace(objList.get(i)) ? 1 : 0;
+        }
+        return result;
+    }
+
+    /**
+     * refresh by keyOne, the properties not null <br>
+     * @return per row, the count updated <br>
+     * default: refresh(RefreshCondition) one by one
+     */
+    default int[] refreshBatch(List<T> objList) {
+        int[] result = new int[objList.size()];
+        for (int i = 0; i < result.length; i++) {
+            T obj = objList.get(i);
+            Parsed parsed = Parser.get(obj.getClass());
+            String keyOne = parsed.getKey(X.KEY_ONE);
+            RefreshCondition<T> refreshCondition = RefreshCondition.build();
+            try {
+                for (BeanElement element : parsed.getBeanElementList()) {
+                    Object value = element.getMethod.invoke(obj);
+                    if (element.property.equals(keyOne)) {
+                        refreshCondition.eq(keyOne, value);
+                    } else {
+                        refreshCondition.refresh(element.property, value);
+                    }
+                }
+            } catch (Exception e) {
+                throw new RuntimeException(ExceptionUtil.getMessage(e));
+            }
+            result[i] = refresh(refreshCondition) ? 1 : 0;
+        }
+        return result;
+    }
+
+    /**
+     * default: remove one by one
+     */
+    default int[] removeBatch(List<? extends Object> keyOneList) {
+        int[] result = new int[keyOneList.size()];
+        for (int i = 0; i < result.length; i++) {
+            Object key = keyOneList.get(i);
+            boolean removed = key instanceof Number
+                    ? remove(((Number) key).longValue())
+                    : remove(String.valueOf(key));
+            result[i] = removed ? 1 : 0;
+        }
+        return result;
+    }
+
     long create(T obj);
 
     /**
@@ -0,0 +1,372 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.xream.x7.cache;
+
+import com.alibaba.fastjson.JSON;
+import io.xream.x7.common.bean.BeanElement;
+import io.xream.x7.common.bean.Parsed;
+import io.xream.x7.common.bean.Parser;
+import io.xream.x7.common.cache.L2CacheCodec;
+import io.xream.x7.common.repository.X;
+import io.xream.x7.common.util.JsonX;
+
+import java.io.*;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * binary codec from the Parsed of entity, <br>
+ * header: MAGIC, flag, fingerprint of the schema; body: the properties ordered by name <br>
+ * the body deflated if longer than compressThreshold <br>
+ * JSON for the class with @X.Ignore property, and decoding the value cached as JSON
+ * @author Sim
+ */
+public final class BinaryL2CacheCodec implements L2CacheCodec {
+
+    private final static byte MAGIC = (byte) 0xB7;
+    private final static byte FLAG_DEFLATED = 1;
+    private final static int HEADER_LENGTH = 6;
+
+    private final static int INT = 1;
+    private final static int LONG = 2;
+    private final static int SHORT = 3;
+    private final static int BYTE = 4;
+    private final static int DOUBLE = 5;
+    private final static int FLOAT = 6;
+    private final static int BOOLEAN = 7;
+    private final static int STRING = 8;
+    private final static int BIG_DECIMAL = 9;
+    private final static int DATE = 10;
+    private final static int ENUM = 11;
+    private final static int JSON_STRING = 12;
+
+    private final static Schema NO_SCHEMA = new Schema(0, null);
+
+    private final Map<Class, Schema> schemaMap = new ConcurrentHashMap<>();
+    private final L2CacheCodec jsonCodec = new JsonL2CacheCodec();
+    private final int compressThreshold;
+
+    public BinaryL2CacheCodec() {
+        this(2048);
+    }
+
+    /**
+     * @param compressThreshold bytes, 0: never deflated
+     */
+    public BinaryL2CacheCodec(int compressThreshold) {
+        this.compressThreshold = compressThreshold;
+    }
+
+    @Override
+    public byte[] encode(Object obj) {
+        if (obj == null)
+            return null;
+        return encode(obj, obj.getClass());
+    }
+
+    /**
+     * by the schema of clz, not of the subclass or proxy, as decode(bytes, clz) reads
+     */
+    @Override
+    public byte[] encode(Object obj, Class clz) {
+        if (obj == null)
+            return null;
+        Schema schema = schema(clz != null && clz.isInstance(obj) ? clz : obj.getClass());
+        if (schema == NO_SCHEMA)
+            return jsonCodec.encode(obj);
+        try {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream(128);
+            DataOutputStream out = new DataOutputStream(bos);
+            for (Element element : schema.elements) {
+                write(out, element, element.getMethod.invoke(obj));
+            }
+            out.flush();
+            byte[] body = bos.toByteArray();
+            byte flag = 0;
+            if (compressThreshold > 0 && body.length > compressThreshold) {
+                body = deflate(body);
+                flag = FLAG_DEFLATED;
+            }
+            byte[] bytes = new byte[HEADER_LENGTH + body.length];
+            bytes[0] = MAGIC;
+            bytes[1] = flag;
+            int fp = schema.fingerprint;
+            bytes[2] = (byte) (fp >>> 24);
+            bytes[3] = (byte) (fp >>> 16);
+            bytes[4] = (byte) (fp >>> 8);
+            bytes[5] = (byte) fp;
+            System.arraycopy(body, 0, bytes, HEADER_LENGTH, body.length);
+            return bytes;
+        } catch (Exception e) {
+            return jsonCodec.encode(obj);
+        }
+    }
+
+    @Override
+    public <T> T decode(byte[] bytes, Class<T> clz) {
+        if (bytes == null || bytes.length == 0)
+            return null;
+        if (bytes[0] != MAGIC)
+            return jsonCodec.decode(bytes, clz);
+        Schema schema = schema(clz);
+        if (schema == NO_SCHEMA || bytes.length < HEADER_LENGTH)
+            return null;
+        int fp = ((bytes[2] & 0xFF) << 24) | ((bytes[3] & 0xFF) << 16) | ((bytes[4] & 0xFF) << 8) | (bytes[5] & 0xFF);
+        if (fp != schema.fingerprint)
+            return null;
+
+        InputStream is = new ByteArrayInputStream(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH);
+        if (bytes[1] == FLAG_DEFLATED) {
+            is = new InflaterInputStream(is);
+        }
+        try (DataInputStream in = new DataInputStream(is)) {
+            T t = clz.getDeclaredConstructor().newInstance();
+            for (Element element : schema.elements) {
+                Object value = read(in, element);
+                if (value != null) {
+                    element.setMethod.invoke(t, value);
+                }
+            }
+            return t;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private Schema schema(Class clz) {
+        Schema schema = schemaMap.get(clz);
+        if (schema != null)
+            return schema;
+        return schemaMap.computeIfAbsent(clz, this::parse);
+    }
+
+    private Schema parse(Class clz) {
+        if (hasIgnoredField(clz))
+            return NO_SCHEMA;
+        Parsed parsed;
+        try {
+            parsed = Parser.get(clz);
+        } catch (Exception e) {
+            return NO_SCHEMA;
+        }
+
+        List<BeanElement> beanElementList = new ArrayList<>(parsed.getBeanElementList());
+        beanElementList.sort(Comparator.comparing(BeanElement::getProperty));
+
+        List<Element> elementList = new ArrayList<>(beanElementList.size());
+        StringBuilder sb = new StringBuilder(clz.getName());
+        for (BeanElement be : beanElementList) {
+            if (be.getMethod == null || be.setMethod == null)
+                return NO_SCHEMA;
+            int kind = kind(be.clz);
+            elementList.add(new Element(kind, be.getMethod, be.setMethod, be.clz));
+            sb.append(";").append(be.getProperty()).append(":").append(be.getMethod.getGenericReturnType().getTypeName());
+        }
+        return new Schema(sb.toString().hashCode(), elementList.toArray(new Element[0]));
+    }
+
+    private boolean hasIgnoredField(Class clz) {
+        List<Field> fieldList = new ArrayList<>(Arrays.asList(clz.getDeclaredFields()));
+        if (clz.getSuperclass() != Object.class) {
+            fieldList.addAll(Arrays.asList(clz.getSuperclass().getDeclaredFields()));
+        }
+        for (Field f : fieldList) {
+            if (f.getAnnotation(X.Ignore.class) != null)
+                return true;
+        }
+        return false;
+    }
+
+    private int kind(Class type) {
+        if (type == int.class || type == Integer.class)
+            return INT;
+        if (type == long.class || type == Long.class)
+            return LONG;
+        if (type == short.class || type == Short.class)
+            return SHORT;
+        if (type == byte.class || type == Byte.class)
+            return BYTE;
+        if (type == double.class || type == Double.class)
+            return DOUBLE;
+        if (type == float.class || type == Float.class)
+            return FLOAT;
+        if (type == boolean.class || type == Boolean.class)
+            return BOOLEAN;
+        if (type == String.class)
+            return STRING;
+        if (type == BigDecimal.class)
+            return BIG_DECIMAL;
+        if (type == Date.class)
+            return DATE;
+        if (type.isEnum())
+            return ENUM;
+        return JSON_STRING;
+    }
+
+    private void write(DataOutputStream out, Element element, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(0);
+            return;
+        }
+        out.writeByte(1);
+        switch (element.kind) {
+            case INT:
+            case SHORT:
+            case BYTE:
+                writeVarLong(out, ((Number) value).intValue());
+                break;
+            case LONG:
+                writeVarLong(out, (Long) value);
+                break;
+            case DOUBLE:
+                out.writeDouble((Double) value);
+                break;
+            case FLOAT:
+                out.writeFloat((Float) value);
+                break;
+            case BOOLEAN:
+                out.writeBoolean((Boolean) value);
+                break;
+            case STRING:
+                writeString(out, (String) value);
+                break;
+            case BIG_DECIMAL:
+                writeString(out, value.toString());
+                break;
+            case DATE:
+                writeVarLong(out, ((Date) value).getTime());
+                break;
+            case ENUM:
+                writeString(out, ((Enum) value).name());
+                break;
+            default:
+                writeString(out, JsonX.toJson(value));
+        }
+    }
+
+    private Object read(DataInputStream in, Element element) throws IOException {
+        if (in.readByte() == 0)
+            return null;
+        switch (element.kind) {
+            case INT:
+                return (int) readVarLong(in);
+            case SHORT:
+                return (short) readVarLong(in);
+            case BYTE:
+                return (byte) readVarLong(in);
+            case LONG:
+                return readVarLong(in);
+            case DOUBLE:
+                return in.readDouble();
+            case FLOAT:
+                return in.readFloat();
+            case BOOLEAN:
+                return in.readBoolean();
+            case STRING:
+                return readString(in);
+            case BIG_DECIMAL:
+                return new BigDecimal(readString(in));
+            case DATE:
+                return new Date(readVarLong(in));
+            case ENUM:
+                return Enum.valueOf(element.type, readString(in));
+            default:
+                Type type = element.getMethod.getGenericReturnType();
+                return JSON.parseObject(readString(in), type);
+        }
+    }
+
+    /**
+     * zigzag, 1 byte for small number
+     */
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        long v = (value << 1) ^ (value >> 63);
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long v = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.readByte();
+            v |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private static void writeString(DataOutputStream out, String str) throws IOException {
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = (int) readVarLong(in);
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] deflate(byte[] body) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(body.length / 2);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DeflaterOutputStream dos = new DeflaterOutputStream(bos, deflater)) {
+            dos.write(body);
+        } finally {
+            deflater.end();
+        }
+        return bos.toByteArray();
+    }
+
+    private static final class Schema {
+        private final int fingerprint;
+        private final Element[] elements;
+
+        private Schema(int fingerprint, Element[] elements) {
+            this.fingerprint = fingerprint;
+            this.elements = elements;
+        }
+    }
+
+    private static final class Element {
+        private final int kind;
+        private final Method getMethod;
+        private final Method setMethod;
+        private final Class type;
+
+        private Element(int kind, Method getMethod, Method setMethod, Class type) {
+            this.kind = kind;
+            this.getMethod = getMethod;
+            this.setMethod = setMethod;
+            this.type = type;
+        }
+    }
+}
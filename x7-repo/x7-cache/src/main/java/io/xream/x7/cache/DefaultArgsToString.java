@@ -16,44 +16,183 @@
  */
 package io.xream.x7.cache;
 
-import io.xream.x7.common.util.JsonX;
+import com.alibaba.fastjson.annotation.JSONField;
 import io.xream.x7.common.web.Tokened;
 
+import java.beans.BeanInfo;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
- *  Tokened
+ *  the args hashed by streaming, without JSON and MD5 <br>
+ *  the properties of each class cached: getters, then public fields without getter, <br>
+ *  skipped as JSON does: transient, @JSONField(serialize=false), and the properties of Tokened <br>
+ *  an object visited again hashed as a reference, no fan-out of shared or cyclic graphs <br>
+ *  no modifying of the args, thread-safe
  */
 public class DefaultArgsToString implements ArgsToString<Tokened>{
+
+    private final static Set<String> TOKENED_PROPERTIES = new HashSet<>(Arrays.asList("passportId", "token", "passportType"));
+    private final static Map<Class, AccessibleObject[]> propertyMap = new ConcurrentHashMap<>();
+
     @Override
     public StringBuilder build(Object[] args) {
+        return new StringBuilder(hash(null, args));
+    }
 
-        StringBuilder sb = new StringBuilder();
-        if (args != null) {
+    @Override
+    public String get(String prefix, Object[] args) {
+        return hash(prefix, args);
+    }
 
+    private String hash(String prefix, Object[] args) {
+        Hash128 hash = new Hash128();
+        if (prefix != null) {
+            hash.putString(prefix);
+        }
+        if (args != null) {
+            Map<Object, Integer> visited = new IdentityHashMap<>();
             for (Object arg : args) {
-                if (arg instanceof Tokened) {
-                    Tokened ro = (Tokened) arg;
-                    long passportId = ro.getPassportId();
-                    String token = ro.getToken();
-                    String passportType = ro.getPassportType();
-
-                    ro.setPassportId("0");
-                    ro.setPassportType(null);
-                    ro.setToken(null);
-
-                    String str = JsonX.toJson(ro);
-                    sb.append(str);
-
-                    ro.setPassportId(String.valueOf(passportId));
-                    ro.setPassportType(passportType);
-                    ro.setToken(token);
-
-                } else {
-                    String str = JsonX.toJson(arg);
-                    sb.append(str);
+                put(hash, arg, visited);
+            }
+        }
+        return hash.toHex();
+    }
+
+    private void put(Hash128 hash, Object obj, Map<Object, Integer> visited) {
+        if (obj == null) {
+            hash.putByte(0);
+            return;
+        }
+        if (obj instanceof CharSequence) {
+            hash.putByte('S').putString((CharSequence) obj);
+        } else if (obj instanceof Integer || obj instanceof Long || obj instanceof Short || obj instanceof Byte) {
+            hash.putByte('L').putLong(((Number) obj).longValue());
+        } else if (obj instanceof Double || obj instanceof Float) {
+            hash.putByte('D').putLong(Double.doubleToLongBits(((Number) obj).doubleValue()));
+        } else if (obj instanceof Number) {
+            hash.putByte('N').putString(obj.toString());
+        } else if (obj instanceof Boolean) {
+            hash.putByte('B').putByte((Boolean) obj ? 1 : 0);
+        } else if (obj instanceof Character) {
+            hash.putByte('C').putChar((Character) obj);
+        } else if (obj instanceof Enum) {
+            hash.putByte('E').putString(((Enum) obj).name());
+        } else if (obj instanceof Date) {
+            hash.putByte('T').putLong(((Date) obj).getTime());
+        } else if (isVisited(hash, obj, visited)) {
+            return;
+        } else if (obj instanceof Collection) {
+            Collection collection = (Collection) obj;
+            hash.putByte('[').putInt(collection.size());
+            for (Object o : collection) {
+                put(hash, o, visited);
+            }
+        } else if (obj instanceof Map) {
+            Map<Object, Object> map = (Map) obj;
+            hash.putByte('{').putInt(map.size());
+            for (Map.Entry<Object, Object> entry : map.entrySet()) {
+                put(hash, entry.getKey(), visited);
+                put(hash, entry.getValue(), visited);
+            }
+        } else if (obj.getClass().isArray()) {
+            int length = Array.getLength(obj);
+            hash.putByte('[').putInt(length);
+            for (int i = 0; i < length; i++) {
+                put(hash, Array.get(obj, i), visited);
+            }
+        } else {
+            Class clz = obj.getClass();
+            hash.putByte('O').putString(clz.getName());
+            for (AccessibleObject property : properties(clz)) {
+                Object value;
+                try {
+                    value = property instanceof Method ? ((Method) property).invoke(obj) : ((Field) property).get(obj);
+                } catch (Exception e) {
+                    hash.putByte(2);
+                    continue;
                 }
+                put(hash, value, visited);
+            }
+        }
+    }
+
+    /**
+     * Collection, Map, array or bean visited before: the order of the first visit hashed
+     */
+    private boolean isVisited(Hash128 hash, Object obj, Map<Object, Integer> visited) {
+        Integer index = visited.get(obj);
+        if (index != null) {
+            hash.putByte('R').putInt(index);
+            return true;
+        }
+        visited.put(obj, visited.size());
+        return false;
+    }
+
+    private AccessibleObject[] properties(Class clz) {
+        AccessibleObject[] properties = propertyMap.get(clz);
+        if (properties != null)
+            return properties;
+        return propertyMap.computeIfAbsent(clz, this::parseProperties);
+    }
+
+    private AccessibleObject[] parseProperties(Class clz) {
+        boolean isTokened = Tokened.class.isAssignableFrom(clz);
+        Map<String, AccessibleObject> map = new TreeMap<>();
+        try {
+            BeanInfo beanInfo = Introspector.getBeanInfo(clz, Object.class);
+            for (PropertyDescriptor pd : beanInfo.getPropertyDescriptors()) {
+                Method getter = pd.getReadMethod();
+                if (getter == null || isSkipped(getter))
+                    continue;
+                Field field = declaredField(clz, pd.getName());
+                if (field != null && (Modifier.isTransient(field.getModifiers()) || isSkipped(field)))
+                    continue;
+                map.put(pd.getName(), getter);
+            }
+        } catch (Exception e) {
+        }
+        for (Field field : clz.getFields()) {
+            int modifiers = field.getModifiers();
+            if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || isSkipped(field))
+                continue;
+            if (!map.containsKey(field.getName())) {
+                map.put(field.getName(), field);
             }
         }
+        if (isTokened) {
+            map.keySet().removeAll(TOKENED_PROPERTIES);
+        }
+        AccessibleObject[] properties = map.values().toArray(new AccessibleObject[0]);
+        for (AccessibleObject property : properties) {
+            try {
+                property.setAccessible(true);
+            } catch (Exception e) {
+            }
+        }
+        return properties;
+    }
 
-        return sb;
+    private static boolean isSkipped(AccessibleObject property) {
+        JSONField jsonField = property.getAnnotation(JSONField.class);
+        return jsonField != null && !jsonField.serialize();
+    }
+
+    private static Field declaredField(Class clz, String name) {
+        for (Class c = clz; c != null && c != Object.class; c = c.getSuperclass()) {
+            try {
+                return c.getDeclaredField(name);
+            } catch (NoSuchFieldException e) {
+            }
+        }
+        return null;
     }
 }
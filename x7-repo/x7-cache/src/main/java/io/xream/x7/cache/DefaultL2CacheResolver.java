@@ -20,6 +20,7 @@ import io.xream.x7.common.bean.Criteria;
 import io.xream.x7.common.bean.Parsed;
 import io.xream.x7.common.bean.Parser;
 import io.xream.x7.common.bean.condition.InCondition;
+import io.xream.x7.common.cache.L2CacheCodec;
 import io.xream.x7.common.cache.L2CacheConsistency;
 import io.xream.x7.common.cache.L2CacheResolver;
 import io.xream.x7.common.cache.L2CacheStorage;
@@ -34,6 +35,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
@@ -49,8 +51,11 @@ public final class DefaultL2CacheResolver implements L2CacheResolver {
 
 	private final static Logger logger = LoggerFactory.getLogger(DefaultL2CacheResolver.class);
 	public final static String NANO_SECOND = ".ns.";
+	public final static String GENERATION = ".gen.";
+	private final static byte[] DEFAULT_VALUE_BYTES = DEFAULT_VALUE.getBytes(StandardCharsets.UTF_8);
 
 	private static int validSecond;
+	private static long namespaceStaleMillis;
 	private static boolean isEnabled;
 
     private L2CacheConsistency l2CacheConsistency;
@@ -70,6 +75,13 @@ public final class DefaultL2CacheResolver implements L2CacheResolver {
 		validSecond = vs;
 		logger.info("L2 Cache try to starting.... cache time = {}s",validSecond);
 	}
+	/**
+	 * the namespace cached in process, pushed by L2NearCacheBroadcaster, <br>
+	 * stale at most namespaceStaleMillis if the broadcast lost, 0: not cached
+	 */
+	public static void setNamespaceStaleMillis(long millis){
+		namespaceStaleMillis = millis;
+	}
 	private int getValidSecondAdjusted(){
 		return  this.validSecond;
 	}
@@ -79,6 +91,19 @@ public final class DefaultL2CacheResolver implements L2CacheResolver {
 		this.cacheStorage = cacheStorage;
 	}
 
+	private final SingleFlight singleFlight = new SingleFlight();
+
+	private L2CacheCodec codec = new BinaryL2CacheCodec();
+	@Override
+	public void setCodec(L2CacheCodec codec){
+		this.codec = codec;
+	}
+
+	private final L2NearCache nearCache = new L2NearCache(namespaceStaleMillis);
+	public L2NearCache getNearCache(){
+		return this.nearCache;
+	}
+
 	protected L2CacheStorage getCachestorage(){
 		if (this.cacheStorage == null)
 			throw new RuntimeException("No implements of L2CacheStorage, like the project x7-repo/x7-redis-integration");
@@ -99,6 +124,7 @@ public final class DefaultL2CacheResolver implements L2CacheResolver {
 		String key = getNSKey(clz);
 		String time = String.valueOf(System.nanoTime());
 		getCachestorage().set(key, time);
+		this.nearCache.publishNamespace(clz, key, time);
 
 		return time;
 	}
@@ -130,30 +156,88 @@ public final class DefaultL2CacheResolver implements L2CacheResolver {
             this.l2CacheConsistency.remove(clz,key);
         }
 
-		key = getSimpleKey(clz, key);
+		key = getSimpleKey(clz, getGeneration(clz), key);
 		getCachestorage().delete(key);
+		if (this.nearCache.region(clz, validSecond) != null) {
+			this.nearCache.remove(clz, key);
+		}
 	}
 
+	/**
+	 * no scanning of keys: a new generation, <br>
+	 * the keys of old generation can not be hit, and will be expired
+	 */
 	public void remove(Class clz) {
 
         if (this.l2CacheConsistency != null){
             this.l2CacheConsistency.remove(clz);
         }
 
-		String key = getSimpleKeyLike(clz);
-
-		Set<String> keySet = getCachestorage().keys(key);
-
-		for (String k : keySet) {
-			getCachestorage().delete(k);
+		newGeneration(clz);
+		if (this.nearCache.region(clz, validSecond) != null) {
+			this.nearCache.remove(clz, null);
 		}
+	}
 
+	@SuppressWarnings("rawtypes")
+	private String newGeneration(Class clz){
+		String key = getGenKey(clz);
+		String generation = String.valueOf(System.nanoTime());
+		getCachestorage().set(key, generation);
+		this.nearCache.publishNamespace(clz, key, generation);
+		return generation;
 	}
-	
+
+	@SuppressWarnings("rawtypes")
+	private String getGeneration(Class clz){
+		String generation = this.nearCache.getNamespace(getGenKey(clz));
+		if (generation != null)
+			return generation;
+		generation = getCachestorage().get(getGenKey(clz));
+		if (generation == null)
+			return newGeneration(clz);
+		return generation;
+	}
+
 	@SuppressWarnings("rawtypes")
 	private String getNSKey(Class clz){
 		return clz.getName()+ NANO_SECOND;
 	}
+
+	@SuppressWarnings("rawtypes")
+	private String getGenKey(Class clz){
+		return clz.getName()+ GENERATION;
+	}
+
+	/**
+	 * no round trip if cached in process, <br>
+	 * or one round trip for nanoTime and generation
+	 */
+	@SuppressWarnings("rawtypes")
+	private Namespace getNamespace(Class clz){
+		String nsKey = getNSKey(clz);
+		String genKey = getGenKey(clz);
+		String time = this.nearCache.getNamespace(nsKey);
+		String generation = this.nearCache.getNamespace(genKey);
+		if (time != null && generation != null)
+			return new Namespace(time, generation);
+
+		long version = this.nearCache.getNamespaceVersion();
+		List<String> list = getCachestorage().multiGet(Arrays.asList(nsKey, genKey));
+		time = list == null ? null : list.get(0);
+		generation = list == null ? null : list.get(1);
+		if (time == null){
+			time = markForRefresh(clz);
+		}else {
+			this.nearCache.putNamespace(nsKey, time, version);
+		}
+		if (generation == null){
+			generation = newGeneration(clz);
+		}else {
+			this.nearCache.putNamespace(genKey, generation, version);
+		}
+		return new Namespace(time, generation);
+	}
 	
 	@SuppressWarnings("unused")
 	private String getNS(String nsKey){
@@ -161,12 +245,12 @@ public final class DefaultL2CacheResolver implements L2CacheResolver {
 	}
 	
 	@SuppressWarnings("rawtypes")
-	private List<String> getKeyList(Class clz, List<String> conditionList){
+	private List<String> getKeyList(Class clz, String generation, List<String> conditionList){
 		if (conditionList == null || conditionList.isEmpty())
 			return null;
 		List<String> keyList = new ArrayList<>();
 		for (String condition : conditionList){
-			String key = getSimpleKey(clz, condition);
+			String key = getSimpleKey(clz, generation, condition);
 			keyList.add(key);
 		}
 		if (keyList.isEmpty())
@@ -182,29 +266,25 @@ public final class DefaultL2CacheResolver implements L2CacheResolver {
 	 * @return
 	 */
 	@SuppressWarnings("rawtypes")
-	private String getSimpleKey(Class clz, String condition){
-		return "{"+clz.getName()+"}." + condition;
+	private String getSimpleKey(Class clz, String generation, String condition){
+		return "{"+clz.getName()+"}." + generation + "." + condition;
 	}
 
-	private String getTotalRowsKey(Class clz, String condition){
+	private String getTotalRowsKey(Class clz, String generation, String condition){
 		condition = VerifyUtil.toMD5(condition) + "~TR";
-		return getSimpleKey(clz, condition);
-	}
-
-	private String getSimpleKeyLike(Class clz){
-		return "{"+clz.getName()+"}.*" ;
+		return getSimpleKey(clz, generation, condition);
 	}
 	
 	
 	@SuppressWarnings("rawtypes")
-	private String getKey(Class clz, Object conditionObj){
+	private String getKey(Class clz, Namespace ns, Object conditionObj){
 		String condition;
 		if (conditionObj == null){
 			condition = DEFAULT_VALUE;
 		}else {
 			condition = JsonX.toJson(conditionObj);
 		}
-		return  getPrefix(clz) +"."+VerifyUtil.toMD5(condition);
+		return  getPrefix(clz, ns) +"."+VerifyUtil.toMD5(condition);
 	}
 
 	
@@ -214,59 +294,148 @@ public final class DefaultL2CacheResolver implements L2CacheResolver {
 	 * @return
 	 */
 	@SuppressWarnings("rawtypes")
-	private String getPrefix(Class clz){
-		String key = getNSKey(clz);
-		String nsStr = getCachestorage().get(key);
-		if (nsStr == null){
-			String str = markForRefresh(clz);
-			return "{"+clz.getName()+"}." + str;
+	private String getPrefix(Class clz, Namespace ns){
+		return "{"+clz.getName()+"}."  + ns.time;
+	}
+
+
+
+	private String cacheGet(Class clz, String key){
+		L2NearCache.Region region = this.nearCache.region(clz, validSecond);
+		if (region == null)
+			return getCachestorage().get(key);
+		String value = (String) region.get(key);
+		if (value != null)
+			return value;
+		value = getCachestorage().get(key);
+		if (value != null) {
+			region.put(key, value);
+		}
+		return value;
+	}
+
+	private byte[] cacheGetBytes(Class clz, String key){
+		L2NearCache.Region region = this.nearCache.region(clz, validSecond);
+		if (region == null)
+			return getCachestorage().getBytes(key);
+		byte[] value = (byte[]) region.get(key);
+		if (value != null)
+			return value;
+		value = getCachestorage().getBytes(key);
+		if (value != null) {
+			region.put(key, value);
 		}
-		return "{"+clz.getName()+"}."  + nsStr;
+		return value;
 	}
 
+	private void cacheSet(Class clz, String key, String value){
+		int validSecond =  getValidSecondAdjusted();
+		getCachestorage().set(key, value, validSecond, TimeUnit.SECONDS);
+		L2NearCache.Region region = this.nearCache.region(clz, validSecond);
+		if (region != null) {
+			region.put(key, value);
+		}
+	}
 
+	private void cacheSetBytes(Class clz, String key, byte[] value){
+		int validSecond =  getValidSecondAdjusted();
+		getCachestorage().setBytes(key, value, validSecond, TimeUnit.SECONDS);
+		L2NearCache.Region region = this.nearCache.region(clz, validSecond);
+		if (region != null) {
+			region.put(key, value);
+		}
+	}
 
-	private void setTotalRows(Class clz, String key, long obj) {
-		key = getTotalRowsKey(clz, key);
+	/**
+	 * the encoded objects in one round trip
+	 */
+	private void cacheMultiSet(Class clz, Map<String, byte[]> objectMap){
+		if (objectMap.isEmpty())
+			return;
 		int validSecond =  getValidSecondAdjusted();
-		getCachestorage().set(key, String.valueOf(obj), validSecond,TimeUnit.SECONDS);
+		getCachestorage().multiSetBytes(objectMap, validSecond, TimeUnit.SECONDS);
+		L2NearCache.Region region = this.nearCache.region(clz, validSecond);
+		if (region != null) {
+			for (Map.Entry<String, byte[]> entry : objectMap.entrySet()) {
+				region.put(entry.getKey(), entry.getValue());
+			}
+		}
 	}
 
+	private List<byte[]> cacheMultiGet(Class clz, List<String> keyList){
+		L2NearCache.Region region = this.nearCache.region(clz, validSecond);
+		if (region == null || keyList == null)
+			return getCachestorage().multiGetBytes(keyList);
 
+		List<byte[]> valueList = new ArrayList<>(keyList.size());
+		List<String> missedKeyList = null;
+		for (String key : keyList) {
+			byte[] value = (byte[]) region.get(key);
+			if (value == null) {
+				if (missedKeyList == null) {
+					missedKeyList = new ArrayList<>();
+				}
+				missedKeyList.add(key);
+			}
+			valueList.add(value);
+		}
+		if (missedKeyList == null)
+			return valueList;
+
+		List<byte[]> missedValueList = getCachestorage().multiGetBytes(missedKeyList);
+		if (missedValueList == null)
+			return valueList;
+		Iterator<byte[]> ite = missedValueList.iterator();
+		for (int i = 0, size = valueList.size(); i < size && ite.hasNext(); i++) {
+			if (valueList.get(i) != null)
+				continue;
+			byte[] value = ite.next();
+			if (value != null) {
+				valueList.set(i, value);
+				region.put(keyList.get(i), value);
+			}
+		}
+		return valueList;
+	}
 
-	private void setResultKeyList(Class clz, Object condition, List<String> keyList) {
-		String key = getKey(clz, condition);
+	private void setTotalRows(Class clz, Namespace ns, String key, long obj) {
+		key = getTotalRowsKey(clz, ns.generation, key);
+		cacheSet(clz, key, String.valueOf(obj));
+	}
+
+
+
+	private void setResultKeyList(Class clz, Namespace ns, Object condition, List<String> keyList) {
+		String key = getKey(clz, ns, condition);
 		try{
-			int validSecond = getValidSecondAdjusted();
-			getCachestorage().set(key, JsonX.toJson(keyList), validSecond,TimeUnit.SECONDS);
+			cacheSet(clz, key, JsonX.toJson(keyList));
 		}catch (Exception e) {
 			throw new L2CacheException(e.getMessage());
 		}
 	}
 
 	
-	private  <T> void setResultKeyListPaginated(Class<T> clz, Object condition, Page<T> pagination) {
-		String key = getKey(clz, condition);
+	private  <T> void setResultKeyListPaginated(Class<T> clz, Namespace ns, Object condition, Page<T> pagination) {
+		String key = getKey(clz, ns, condition);
 		try{
-			int validSecond = getValidSecondAdjusted();
-			getCachestorage().set(key, JsonX.toJson(pagination), validSecond, TimeUnit.SECONDS);
+			cacheSet(clz, key, JsonX.toJson(pagination));
 		}catch (Exception e) {
 			throw new L2CacheException(e.getMessage());
 		}
 	}
 
-	private List<String> getResultKeyList(Class clz, Object condition) throws NotQueryUnderProtectionException{
-		String key = getKey(clz, condition);
-		String str = getCachestorage().get(key);
+	private List<String> getResultKeyList(Class clz, Namespace ns, Object condition) throws NotQueryUnderProtectionException{
+		String key = getKey(clz, ns, condition);
+		String str = cacheGet(clz, key);
 		if (StringUtil.isNullOrEmpty(str))
 			throw new NotQueryUnderProtectionException();
 		
 		return JsonX.toList(str, String.class);
 	}
 	
-	private Page<String> getResultKeyListPaginated(Class clz, Object condition) {
-		String key = getKey(clz, condition);
-		String json = getCachestorage().get(key);
+	private Page<String> getResultKeyListPaginated(Class clz, Namespace ns, Object condition) {
+		String key = getKey(clz, ns, condition);
+		String json = cacheGet(clz, key);
 		
 		if (StringUtil.isNullOrEmpty(json))
 			return null;
@@ -274,18 +443,18 @@ public final class DefaultL2CacheResolver implements L2CacheResolver {
 		return ObjectUtil.toPagination(json);
 	}
 
-	private  <T> List<T> list(Class<T> clz, List<String> keyList) {
-		List<String> keyArr = getKeyList(clz, keyList);//转换成缓存需要的keyList
+	private  <T> List<T> list(Class<T> clz, Namespace ns, List<String> keyList) {
+		List<String> keyArr = getKeyList(clz, ns.generation, keyList);//转换成缓存需要的keyList
 		
-		List<String> jsonList = getCachestorage().multiGet(keyArr);
+		List<byte[]> bytesList = cacheMultiGet(clz, keyArr);
 		
-		if (jsonList == null)
+		if (bytesList == null)
 			return new ArrayList<T>();
 		
 		List<T> list = new ArrayList<T>();
-		for (String json : jsonList){
-			if (StringUtil.isNotNull(json)) {
-				T t = JsonX.toObject(json,clz);
+		for (byte[] bytes : bytesList){
+			T t = this.codec.decode(bytes, clz);
+			if (t != null) {
 				list.add(t);
 			}
 		}
@@ -296,57 +465,40 @@ public final class DefaultL2CacheResolver implements L2CacheResolver {
 	/**
 	 * FIXME {hash tag}
 	 */
-	private void set(Class clz, String key, Object obj) {
-		key = getSimpleKey(clz, key);
-		doSet(key,obj);
+	private void set(Class clz, Namespace ns, Object objKey, Object obj) {
+		String key = getKey(clz, ns, objKey);
+		doSet(clz,key,obj);
 	}
 
-	/**
-	 * FIXME {hash tag}
-	 */
-	private void set(Class clz, Object objKey, Object obj) {
-		String key = getKey(clz, objKey);
-		doSet(key,obj);
-	}
-
-	private void doSet(String key, Object obj) {
+	private void doSet(Class clz, String key, Object obj) {
 
-		int validSecond =  getValidSecondAdjusted();
-		String value;
+		byte[] value;
 		if (obj == null){
-			value = DEFAULT_VALUE;
+			value = DEFAULT_VALUE_BYTES;
 		}else {
-			value = JsonX.toJson(obj);
+			value = this.codec.encode(obj, clz);
 		}
-		getCachestorage().set(key, value, validSecond,TimeUnit.SECONDS);
-	}
-
-	/**
-	 * FIXME {hash tag}
-	 */
-	private  <T> T get(Class<T> clz, String key) throws NoResultUnderProtectionException{
-		key = getSimpleKey(clz,key);
-		return doGet(clz,key);
+		cacheSetBytes(clz, key, value);
 	}
 
-	private  <T> T get(Class<T> clz, Object objKey) throws NoResultUnderProtectionException{
-		String key = getKey(clz,objKey);
+	private  <T> T get(Class<T> clz, Namespace ns, Object objKey) throws NoResultUnderProtectionException{
+		String key = getKey(clz,ns,objKey);
 		return doGet(clz,key);
 	}
 
 	private <T> T doGet(Class<T> clz, String key) throws NoResultUnderProtectionException{
-		String str = getCachestorage().get(key);
-		if (StringUtil.isNullOrEmpty(str))
+		byte[] bytes = cacheGetBytes(clz, key);
+		if (bytes == null || bytes.length == 0)
 			return null;
-		if (str.trim().equals(DEFAULT_VALUE))
+		if (Arrays.equals(bytes, DEFAULT_VALUE_BYTES))
 			throw new NoResultUnderProtectionException();
-		T obj = JsonX.toObject(str,clz);
+		T obj = this.codec.decode(bytes,clz);
 		return obj;
 	}
 
-	private  <T> long getTotalRows(Class<T> clz, String key) {
-		key = getTotalRowsKey(clz,key);
-		String str = getCachestorage().get(key);
+	private  <T> long getTotalRows(Class<T> clz, Namespace ns, String key) {
+		key = getTotalRowsKey(clz,ns.generation,key);
+		String str = cacheGet(clz, key);
 		if (StringUtil.isNullOrEmpty(str))
 			return DEFAULT_NUM;
 		return Long.valueOf(str);
@@ -355,169 +507,221 @@ public final class DefaultL2CacheResolver implements L2CacheResolver {
 
 	@Override
 	public <T> List<T> listUnderProtection(Class<T> clz, Object conditionObj, QueryForCache queryForCache, Callable<List<T>> callable) {
+		return listUnderProtection(clz, conditionObj, queryForCache, callable, true);
+	}
+
+	private <T> List<T> listUnderProtection(Class<T> clz, Object conditionObj, QueryForCache queryForCache, Callable<List<T>> callable, boolean isSingleFlight) {
 
 		Parsed parsed = Parser.get(clz);
+		Namespace ns = getNamespace(clz);
 		List<String> keyList = null;
 		try {
-			keyList = getResultKeyList(clz, conditionObj);
+			keyList = getResultKeyList(clz, ns, conditionObj);
 		}catch (NotQueryUnderProtectionException upe) {
 
 		}
 		if (keyList == null) {
-
-			List<T> list = null;
-			try {
-				list = callable.call();
-			} catch (Exception e) {
-				throw new RuntimeException(ExceptionUtil.getMessage(e));
-			}
-
-			keyList = new ArrayList<String>();
-
-			for (T t : list) {
-				String key = BeanUtilX.getCacheKey(t, parsed);
-				keyList.add(key);
-			}
-
-			setResultKeyList(clz, conditionObj, keyList);
-
-			return list;
+			if (!isSingleFlight)
+				return loadList(clz, parsed, ns, conditionObj, callable);
+			return this.singleFlight.load(getKey(clz, ns, conditionObj),
+					() -> loadList(clz, parsed, ns, conditionObj, callable),
+					() -> listUnderProtection(clz, conditionObj, queryForCache, callable, false));
 		}
 
 		if (keyList.isEmpty())
 			return new ArrayList<>();
 
-		List<T> list = list(clz, keyList);
+		List<T> list = list(clz, ns, keyList);
 
 		if (keyList.size() == list.size())
 			return list;
 
-		replenishAndRefreshCache(keyList, list, clz, parsed,queryForCache);
+		Map<String, T> map = toMap(list, parsed);
 
-		List<T> sortedList = sort(keyList, list, parsed);
+		replenishAndRefreshCache(keyList, map, clz, parsed, ns, queryForCache);
+
+		List<T> sortedList = sort(keyList, map);
 
 		return sortedList;
 	}
 
+	private <T> List<T> loadList(Class<T> clz, Parsed parsed, Namespace ns, Object conditionObj, Callable<List<T>> callable) {
+
+		List<T> list = null;
+		try {
+			list = callable.call();
+		} catch (Exception e) {
+			throw new RuntimeException(ExceptionUtil.getMessage(e));
+		}
+
+		List<String> keyList = new ArrayList<String>();
+
+		for (T t : list) {
+			String key = BeanUtilX.getCacheKey(t, parsed);
+			keyList.add(key);
+		}
+
+		setResultKeyList(clz, ns, conditionObj, keyList);
+
+		return list;
+	}
+
 	@Override
 	public <T> T getUnderProtection(Class<T> clz, Object conditionObj, Callable<T> callable) {
+		return getUnderProtection(clz, conditionObj, callable, true);
+	}
 
+	private <T> T getUnderProtection(Class<T> clz, Object conditionObj, Callable<T> callable, boolean isSingleFlight) {
+
+		Namespace ns = getNamespace(clz);
 		T obj;
 		try{
-			obj = get(clz,conditionObj);
+			obj = get(clz,ns,conditionObj);
 		}catch (NoResultUnderProtectionException e){
 			return null;
 		}
 
 		if (obj == null) {
-			try {
-				obj = callable.call();
-			}catch (Exception e){
-				throw new RuntimeException(ExceptionUtil.getMessage(e));
-			}
-			set(clz, conditionObj, obj);
+			if (!isSingleFlight)
+				return loadObject(clz, ns, conditionObj, callable);
+			return this.singleFlight.load(getKey(clz, ns, conditionObj),
+					() -> loadObject(clz, ns, conditionObj, callable),
+					() -> getUnderProtection(clz, conditionObj, callable, false));
 		}
 
 		return obj;
 	}
 
+	private <T> T loadObject(Class<T> clz, Namespace ns, Object conditionObj, Callable<T> callable) {
+		T obj;
+		try {
+			obj = callable.call();
+		}catch (Exception e){
+			throw new RuntimeException(ExceptionUtil.getMessage(e));
+		}
+		set(clz, ns, conditionObj, obj);
+		return obj;
+	}
+
 	@Override
 	public <T> Page<T> findUnderProtection(Criteria criteria,QueryForCache queryForCache, Callable<Page<T>> findCallable, Callable<List<T>> listCallable){
+		return findUnderProtection(criteria, queryForCache, findCallable, listCallable, true);
+	}
+
+	private <T> Page<T> findUnderProtection(Criteria criteria,QueryForCache queryForCache, Callable<Page<T>> findCallable, Callable<List<T>> listCallable, boolean isSingleFlight){
 		Class clz = criteria.getClz();
 		Parsed parsed = Parser.get(clz);
-		Page p = getResultKeyListPaginated(clz, criteria);// FIXME
+		Namespace ns = getNamespace(clz);
+		Page p = getResultKeyListPaginated(clz, ns, criteria);// FIXME
 
 		if (p == null) {
+			if (!isSingleFlight)
+				return loadPage(criteria, clz, parsed, ns, findCallable, listCallable);
+			return this.singleFlight.load(getKey(clz, ns, criteria),
+					() -> loadPage(criteria, clz, parsed, ns, findCallable, listCallable),
+					() -> findUnderProtection(criteria, queryForCache, findCallable, listCallable, false));
+		}
 
-			final String totalRowsString = getTotalRowsString(criteria);
+		List<String> keyList = p.getKeyList();
 
-			if (!criteria.isTotalRowsIgnored()) {
-				// totalRows from cache
-				long totalRows = getTotalRows(clz, totalRowsString);
-				if (totalRows == DEFAULT_NUM) {
-					try {
-						p = findCallable.call();
-					}catch (Exception e){
-						throw new RuntimeException(ExceptionUtil.getMessage(e));
-					}
+		if (keyList == null || keyList.isEmpty()) {
+			return p;
+		}
 
-					setTotalRows(clz, totalRowsString, p.getTotalRows());
+		List<T> list = list(clz, ns, keyList);
 
-				} else {
-					List<T> list = null;
-					try {
-						list = listCallable.call();
-					} catch (Exception e) {
-						throw new RuntimeException(ExceptionUtil.getMessage(e));
-					}
-					p = new Page<>();
-					p.setTotalRows(totalRows);
-					p.setPage(criteria.getPage());
-					p.setRows(criteria.getRows());
-					p.reSetList(list);
-				}
-			} else {
-				try {
-					p = findCallable.call();
-				}catch (Exception e){
-					throw new RuntimeException(ExceptionUtil.getMessage(e));
-				}
-			}
+		if (keyList.size() == list.size()) {
+			p.reSetList(list);
+			return p;
+		}
 
-			List<T> list = p.getList(); // 结果
+		Map<String, T> map = toMap(list, parsed);
 
-			List<String> keyList = p.getKeyList();
+		replenishAndRefreshCache(keyList, map, clz, parsed, ns, queryForCache);
 
-			for (T t : list) {
-				String key = BeanUtilX.getCacheKey(t, parsed);
-				keyList.add(key);
-			}
+		List<T> sortedList = sort(keyList, map);
 
-			p.reSetList(null);
+		p.reSetList(sortedList);
 
-			setResultKeyListPaginated(clz, criteria, p);
+		return p;
+	}
 
-			p.setKeyList(null);
-			p.reSetList(list);
+	private <T> Page<T> loadPage(Criteria criteria, Class clz, Parsed parsed, Namespace ns, Callable<Page<T>> findCallable, Callable<List<T>> listCallable) {
 
-			return p;
-		}
+		Page p;
 
-		List<String> keyList = p.getKeyList();
+		final String totalRowsString = getTotalRowsString(criteria);
 
-		if (keyList == null || keyList.isEmpty()) {
-			return p;
+		if (!criteria.isTotalRowsIgnored()) {
+			// totalRows from cache
+			long totalRows = getTotalRows(clz, ns, totalRowsString);
+			if (totalRows == DEFAULT_NUM) {
+				try {
+					p = findCallable.call();
+				}catch (Exception e){
+					throw new RuntimeException(ExceptionUtil.getMessage(e));
+				}
+
+				setTotalRows(clz, ns, totalRowsString, p.getTotalRows());
+
+			} else {
+				List<T> list = null;
+				try {
+					list = listCallable.call();
+				} catch (Exception e) {
+					throw new RuntimeException(ExceptionUtil.getMessage(e));
+				}
+				p = new Page<>();
+				p.setTotalRows(totalRows);
+				p.setPage(criteria.getPage());
+				p.setRows(criteria.getRows());
+				p.reSetList(list);
+			}
+		} else {
+			try {
+				p = findCallable.call();
+			}catch (Exception e){
+				throw new RuntimeException(ExceptionUtil.getMessage(e));
+			}
 		}
 
-		List<T> list = list(clz, keyList);
+		List<T> list = p.getList(); // 结果
 
-		if (keyList.size() == list.size()) {
-			p.reSetList(list);
-			return p;
+		List<String> keyList = p.getKeyList();
+
+		for (T t : list) {
+			String key = BeanUtilX.getCacheKey(t, parsed);
+			keyList.add(key);
 		}
 
-		replenishAndRefreshCache(keyList, list, clz, parsed, queryForCache);
+		p.reSetList(null);
 
-		List<T> sortedList = sort(keyList, list, parsed);
+		setResultKeyListPaginated(clz, ns, criteria, p);
 
-		p.reSetList(sortedList);
+		p.setKeyList(null);
+		p.reSetList(list);
 
 		return p;
 	}
 
-	private  <T> void replenishAndRefreshCache(List<String> keyList, List<T> list, Class<T> clz, Parsed parsed, QueryForCache queryForCache) {
-
-		Set<String> keySet = new HashSet<String>();
+	/**
+	 * the key of each object computed once
+	 */
+	private <T> Map<String, T> toMap(List<T> list, Parsed parsed) {
+		Map<String, T> map = new HashMap<>(list.size() * 4 / 3 + 1);
 		for (T t : list) {
-			String key = BeanUtilX.getCacheKey(t, parsed);
-			keySet.add(key);
+			map.put(BeanUtilX.getCacheKey(t, parsed), t);
 		}
+		return map;
+	}
+
+	private  <T> void replenishAndRefreshCache(List<String> keyList, Map<String, T> map, Class<T> clz, Parsed parsed, Namespace ns, QueryForCache queryForCache) {
 
 		Field f = parsed.getKeyField(X.KEY_ONE);
 		Class keyClz = f.getType();
 		List<Object> idList = new ArrayList<>();
 		for (String key : keyList) {
-			if (!keySet.contains(key)) {
+			if (!map.containsKey(key)) {
 				try {
 					if (keyClz == String.class) {
 						idList.add(key);
@@ -542,29 +746,26 @@ public final class DefaultL2CacheResolver implements L2CacheResolver {
 			return;
 		}
 
+		Map<String, byte[]> objectMap = new HashMap<>();
 		try {
 			for (T obj : objList) {
-				list.add(obj);
-				Object id = f.get(obj);
-				set(clz, String.valueOf(id), obj);
+				String id = String.valueOf(f.get(obj));
+				map.put(id, obj);
+				objectMap.put(getSimpleKey(clz, ns.generation, id), this.codec.encode(obj, clz));
 			}
 		} catch (Exception e) {
 
 		}
+		cacheMultiSet(clz, objectMap);
 
 	}
 
-	private  <T> List<T> sort(List<String> keyList, List<T> list, Parsed parsed) {
-		List<T> sortedList = new ArrayList<T>();
+	private  <T> List<T> sort(List<String> keyList, Map<String, T> map) {
+		List<T> sortedList = new ArrayList<T>(keyList.size());
 		for (String key : keyList) {
-			Iterator<T> ite = list.iterator();
-			while (ite.hasNext()) {
-				T t = ite.next();
-				if (key.equals(BeanUtilX.getCacheKey(t, parsed))) {
-					ite.remove();
-					sortedList.add(t);
-					break;
-				}
+			T t = map.get(key);
+			if (t != null) {
+				sortedList.add(t);
 			}
 		}
 		return sortedList;
@@ -578,4 +779,18 @@ public final class DefaultL2CacheResolver implements L2CacheResolver {
 		return str;
 	}
 
+	/**
+	 * time: namespace of result keys, changed by markForRefresh <br>
+	 * generation: namespace of object keys, changed by remove(clz)
+	 */
+	private final static class Namespace {
+		private final String time;
+		private final String generation;
+
+		private Namespace(String time, String generation) {
+			this.time = time;
+			this.generation = generation;
+		}
+	}
+
 }
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.xream.x7.cache;
+
+/**
+ * streaming MurmurHash3 x64 128, not thread-safe <br>
+ * no buffer but two longs
+ * @author Sim
+ */
+final class Hash128 {
+
+    private final static long C1 = 0x87c37b91114253d5L;
+    private final static long C2 = 0x4cf5ad432745937fL;
+    private final static char[] HEX = "0123456789abcdef".toCharArray();
+
+    private long h1;
+    private long h2;
+    private long k1;
+    private long k2;
+    private int position;
+    private long length;
+
+    Hash128 putByte(int b) {
+        long v = b & 0xFFL;
+        if (position < 8) {
+            k1 |= v << (position << 3);
+        } else {
+            k2 |= v << ((position - 8) << 3);
+        }
+        length++;
+        if (++position == 16) {
+            mix(k1, k2);
+            k1 = 0;
+            k2 = 0;
+            position = 0;
+        }
+        return this;
+    }
+
+    Hash128 putChar(char c) {
+        putByte(c);
+        return putByte(c >>> 8);
+    }
+
+    Hash128 putInt(int v) {
+        for (int i = 0; i < 32; i += 8) {
+            putByte(v >>> i);
+        }
+        return this;
+    }
+
+    Hash128 putLong(long v) {
+        for (int i = 0; i < 64; i += 8) {
+            putByte((int) (v >>> i));
+        }
+        return this;
+    }
+
+    Hash128 putString(CharSequence str) {
+        int len = str.length();
+        putInt(len);
+        for (int i = 0; i < len; i++) {
+            putChar(str.charAt(i));
+        }
+        return this;
+    }
+
+    private void mix(long k1, long k2) {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        k1 *= C2;
+        h1 ^= k1;
+
+        h1 = Long.rotateLeft(h1, 27);
+        h1 += h2;
+        h1 = h1 * 5 + 0x52dce729;
+
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        k2 *= C1;
+        h2 ^= k2;
+
+        h2 = Long.rotateLeft(h2, 31);
+        h2 += h1;
+        h2 = h2 * 5 + 0x38495ab5;
+    }
+
+    /**
+     * 32 hex chars, the same length as MD5
+     */
+    String toHex() {
+        long h1 = this.h1;
+        long h2 = this.h2;
+        if (position > 0) {
+            long k1 = this.k1;
+            long k2 = this.k2;
+            if (position > 8) {
+                k2 *= C2;
+                k2 = Long.rotateLeft(k2, 33);
+                k2 *= C1;
+                h2 ^= k2;
+            }
+            k1 *= C1;
+            k1 = Long.rotateLeft(k1, 31);
+            k1 *= C2;
+            h1 ^= k1;
+        }
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+        h1 += h2;
+        h2 += h1;
+
+        char[] chars = new char[32];
+        for (int i = 0; i < 16; i++) {
+            chars[i] = HEX[(int) (h1 >>> (60 - (i << 2))) & 0xF];
+            chars[16 + i] = HEX[(int) (h2 >>> (60 - (i << 2))) & 0xF];
+        }
+        return new String(chars);
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
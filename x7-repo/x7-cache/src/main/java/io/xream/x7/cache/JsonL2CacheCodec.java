@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.xream.x7.cache;
+
+import io.xream.x7.common.cache.L2CacheCodec;
+import io.xream.x7.common.util.JsonX;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * the format before BinaryL2CacheCodec, UTF-8 of JSON
+ */
+public final class JsonL2CacheCodec implements L2CacheCodec {
+
+    @Override
+    public byte[] encode(Object obj) {
+        return JsonX.toJson(obj).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public <T> T decode(byte[] bytes, Class<T> clz) {
+        if (bytes == null || bytes.length == 0)
+            return null;
+        try {
+            return JsonX.toObject(new String(bytes, StandardCharsets.UTF_8), clz);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.xream.x7.cache;
+
+import io.xream.x7.common.bean.Parsed;
+import io.xream.x7.common.bean.Parser;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * in process cache in front of L2CacheStorage, <br>
+ * only for the class annotated with @X.NearCache <br>
+ * LRU evicted, expired by time, stale at most expireSeconds if the broadcast lost <br>
+ * also holds the namespace tokens of all classes, pushed by broadcaster, <br>
+ * stale at most namespaceStaleMillis if the broadcast lost
+ * @author Sim
+ */
+public final class L2NearCache {
+
+    private final Map<Class, Region> regionMap = new ConcurrentHashMap<>();
+
+    private final Map<String, Cached> namespaceMap = new ConcurrentHashMap<>();
+    private final AtomicLong namespaceVersion = new AtomicLong();
+    private final long namespaceStaleNanos;
+
+    private L2NearCacheBroadcaster broadcaster;
+
+    public L2NearCache(long namespaceStaleMillis) {
+        this.namespaceStaleNanos = TimeUnit.MILLISECONDS.toNanos(namespaceStaleMillis);
+    }
+
+    /**
+     * without broadcaster, the namespace can not be cached
+     */
+    private boolean isNamespaceCacheable() {
+        return this.broadcaster != null && this.namespaceStaleNanos > 0;
+    }
+
+    /**
+     * @return null if not cached or stale
+     */
+    public String getNamespace(String nsKey) {
+        if (!isNamespaceCacheable())
+            return null;
+        Cached cached = namespaceMap.get(nsKey);
+        if (cached == null)
+            return null;
+        if (cached.expireAt - System.nanoTime() < 0) {
+            namespaceMap.remove(nsKey, cached);
+            return null;
+        }
+        return (String) cached.value;
+    }
+
+    /**
+     * read before loading the namespace from L2CacheStorage
+     */
+    public long getNamespaceVersion() {
+        return namespaceVersion.get();
+    }
+
+    /**
+     * loaded from L2CacheStorage, abandoned if a broadcast arrived while loading
+     */
+    public void putNamespace(String nsKey, String value, long version) {
+        if (!isNamespaceCacheable() || value == null)
+            return;
+        Cached cached = new Cached(value, System.nanoTime() + namespaceStaleNanos);
+        namespaceMap.put(nsKey, cached);
+        if (namespaceVersion.get() != version) {
+            namespaceMap.remove(nsKey, cached);
+        }
+    }
+
+    /**
+     * changed on this node, push to all the other nodes
+     */
+    public void publishNamespace(Class clz, String nsKey, String value) {
+        if (!isNamespaceCacheable())
+            return;
+        namespaceVersion.incrementAndGet();
+        namespaceMap.put(nsKey, new Cached(value, System.nanoTime() + namespaceStaleNanos));
+        broadcaster.publish(clz, nsKey);
+    }
+
+    public void setBroadcaster(L2NearCacheBroadcaster broadcaster) {
+        this.broadcaster = broadcaster;
+        if (broadcaster != null) {
+            broadcaster.subscribe(this);
+        }
+    }
+
+    /**
+     * @return null if the class is not annotated with @X.NearCache
+     */
+    public Region region(Class clz, int validSecond) {
+        Region region = regionMap.get(clz);
+        if (region != null)
+            return region;
+        Parsed parsed = Parser.get(clz);
+        if (!parsed.isNearCache())
+            return null;
+        int expireSeconds = parsed.getNearCacheExpireSeconds();
+        if (validSecond > 0 && validSecond < expireSeconds) {
+            expireSeconds = validSecond;
+        }
+        final int es = expireSeconds;
+        return regionMap.computeIfAbsent(clz, c -> new Region(es, parsed.getNearCacheMaxSize()));
+    }
+
+    public Region getRegion(Class clz) {
+        return regionMap.get(clz);
+    }
+
+    /**
+     * remove the key on this node, and all the other nodes
+     */
+    public void remove(Class clz, String key) {
+        invalidate(clz, key);
+        if (broadcaster != null) {
+            broadcaster.publish(clz, key);
+        }
+    }
+
+    /**
+     * remove the key on this node only, called by broadcaster
+     */
+    public void invalidate(Class clz, String key) {
+        if (key != null) {
+            namespaceVersion.incrementAndGet();
+            namespaceMap.remove(key);
+        }
+        Region region = regionMap.get(clz);
+        if (region == null)
+            return;
+        if (key == null) {
+            region.clear();
+        } else {
+            region.remove(key);
+        }
+    }
+
+    public static final class Region {
+
+        private final long expireNanos;
+        private final int maxSize;
+        private final LinkedHashMap<String, Cached> map;
+
+        private final LongAdder hitCount = new LongAdder();
+        private final LongAdder missCount = new LongAdder();
+        private final LongAdder evictionCount = new LongAdder();
+
+        private Region(int expireSeconds, int maxSize) {
+            this.expireNanos = TimeUnit.SECONDS.toNanos(expireSeconds);
+            this.maxSize = maxSize;
+            this.map = new LinkedHashMap<String, Cached>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) {
+                    if (size() <= Region.this.maxSize)
+                        return false;
+                    evictionCount.increment();
+                    return true;
+                }
+            };
+        }
+
+        public Object get(String key) {
+            Cached cached;
+            synchronized (this) {
+                cached = map.get(key);
+                if (cached != null && cached.expireAt - System.nanoTime() < 0) {
+                    map.remove(key);
+                    cached = null;
+                }
+            }
+            if (cached == null) {
+                missCount.increment();
+                return null;
+            }
+            hitCount.increment();
+            return cached.value;
+        }
+
+        public void put(String key, Object value) {
+            Cached cached = new Cached(value, System.nanoTime() + expireNanos);
+            synchronized (this) {
+                map.put(key, cached);
+            }
+        }
+
+        public synchronized void remove(String key) {
+            map.remove(key);
+        }
+
+        public synchronized void clear() {
+            map.clear();
+        }
+
+        public synchronized int size() {
+            return map.size();
+        }
+
+        public long getHitCount() {
+            return hitCount.sum();
+        }
+
+        public long getMissCount() {
+            return missCount.sum();
+        }
+
+        public long getEvictionCount() {
+            return evictionCount.sum();
+        }
+
+        @Override
+        public String toString() {
+            return "Region{" +
+                    "size=" + size() +
+                    ", maxSize=" + maxSize +
+                    ", hitCount=" + getHitCount() +
+                    ", missCount=" + getMissCount() +
+                    ", evictionCount=" + getEvictionCount() +
+                    '}';
+        }
+    }
+
+    private static final class Cached {
+        private final Object value;
+        private final long expireAt;
+
+        private Cached(Object value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -18,10 +18,13 @@ package io.xream.x7.cache;
 
 import com.alibaba.fastjson.JSON;
 import io.xream.x7.common.cache.CacheableL3;
+import io.xream.x7.common.cache.Protection;
+import io.xream.x7.common.util.BeanUtil;
 import io.xream.x7.common.util.ExceptionUtil;
 import io.xream.x7.common.util.JsonX;
 import io.xream.x7.common.util.KeyUtil;
 import io.xream.x7.common.util.StringUtil;
+import io.xream.x7.exception.L3CacheException;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
@@ -29,9 +32,11 @@ import org.aspectj.lang.annotation.Pointcut;
 import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.beans.factory.annotation.Value;
 
+import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -75,6 +80,8 @@ public class L3CacheAspect {
     }
 
 
+    private final static Map<String, Method> KEY_GETTER_MAP = new ConcurrentHashMap<>();
+
     private ArgsToString argsToString;
 
     public void setArgsToString(ArgsToString argsToString) {
@@ -110,6 +117,18 @@ public class L3CacheAspect {
 
         Object[] argArr = proceedingJoinPoint.getArgs();
 
+        long expireTime = cacheableL3.expireTime();
+        TimeUnit timeUnit = cacheableL3.timeUnit();
+
+        if (expireTime == 0) {
+            expireTime = getExpireTime();
+            timeUnit = TimeUnit.MILLISECONDS;
+        }
+
+        if (StringUtil.isNotNull(cacheableL3.perElementKey())) {
+            return aroundBatch(proceedingJoinPoint, ms, cacheableL3.perElementKey(), argArr, expireTime, timeUnit);
+        }
+
         String key = "";
         String condition = cacheableL3.condition();
         if (StringUtil.isNullOrEmpty(condition)) {
@@ -117,15 +136,13 @@ public class L3CacheAspect {
         }else {
             key = KeyUtil.makeKey(methodName,"~L3Cache", condition, argArr);
         }
-        long expireTime = cacheableL3.expireTime();
-        TimeUnit timeUnit = cacheableL3.timeUnit();
 
-        if (expireTime == 0) {
-            expireTime = getExpireTime();
-            timeUnit = TimeUnit.MILLISECONDS;
+        long staleTime = timeUnit.convert(cacheableL3.staleTime(), cacheableL3.timeUnit());
+        if (staleTime >= expireTime) {
+            staleTime = 0;
         }
 
-        String value = resolver.resolve(key, expireTime, timeUnit,
+        String value = resolver.resolve(key, expireTime, staleTime, timeUnit,
                 () -> {
                     try {
                         return proceedingJoinPoint.proceed();
@@ -153,4 +170,107 @@ public class L3CacheAspect {
         return JsonX.toObject(value, returnType);
     }
 
+    /**
+     * one key per element of the Collection argument <br>
+     * multiGet the keys, proceed with the keys missed only, <br>
+     * then multiSet, the result in the order of the argument
+     */
+    private Object aroundBatch(ProceedingJoinPoint proceedingJoinPoint, MethodSignature ms, String perElementKey,
+                               Object[] argArr, long expireTime, TimeUnit timeUnit) {
+
+        int index = -1;
+        for (int i = 0; i < argArr.length; i++) {
+            if (argArr[i] instanceof Collection) {
+                index = i;
+                break;
+            }
+        }
+        Type gt = ms.getMethod().getGenericReturnType();
+        if (index == -1 || ms.getReturnType() != List.class || !(gt instanceof ParameterizedType)
+                || !(((ParameterizedType) gt).getActualTypeArguments()[0] instanceof Class))
+            throw new L3CacheException("@CacheableL3(perElementKey) supported only by method with Collection argument, returns List<T>: " + ms.toShortString());
+
+        Class elementClz = (Class) ((ParameterizedType) gt).getActualTypeArguments()[0];
+        Method keyGetter = getKeyGetter(elementClz, perElementKey);
+
+        Collection<?> idColl = (Collection<?>) argArr[index];
+        if (idColl.isEmpty())
+            return new ArrayList<>();
+
+        String methodName = ms.toShortString() + "~L3Batch";
+        List<Object> idList = new ArrayList<>(idColl);
+        List<String> keyList = new ArrayList<>(idList.size());
+        Object[] keyArgArr = argArr.clone();
+        for (Object id : idList) {
+            keyArgArr[index] = id;
+            keyList.add(argsToString.get(methodName, keyArgArr));
+        }
+
+        L3CacheStorage storage = resolver.getStorage();
+        List<String> valueList = storage.multiGet(keyList, expireTime, timeUnit);
+
+        Object[] resultArr = new Object[idList.size()];
+        List<Object> missedIdList = new ArrayList<>();
+        for (int i = 0; i < resultArr.length; i++) {
+            String value = valueList.get(i);
+            if (value == null) {
+                missedIdList.add(idList.get(i));
+            } else if (!Protection.DEFAULT_VALUE.equals(value)) {
+                resultArr[i] = JsonX.toObject(value, elementClz);
+            }
+        }
+
+        if (!missedIdList.isEmpty()) {
+            Object[] newArgArr = argArr.clone();
+            newArgArr[index] = idColl instanceof Set ? new LinkedHashSet<>(missedIdList) : missedIdList;
+            List<?> loadedList;
+            try {
+                loadedList = (List<?>) proceedingJoinPoint.proceed(newArgArr);
+            } catch (Throwable e) {
+                throw new RuntimeException(ExceptionUtil.getMessage(e));
+            }
+
+            Map<String, Object> loadedMap = new HashMap<>();
+            if (loadedList != null) {
+                for (Object obj : loadedList) {
+                    if (obj == null)
+                        continue;
+                    try {
+                        loadedMap.put(String.valueOf(keyGetter.invoke(obj)), obj);
+                    } catch (Exception e) {
+                        throw new L3CacheException(ExceptionUtil.getMessage(e));
+                    }
+                }
+            }
+
+            Map<String, String> toCacheMap = new LinkedHashMap<>();
+            for (int i = 0; i < resultArr.length; i++) {
+                if (valueList.get(i) != null)
+                    continue;
+                Object obj = loadedMap.get(String.valueOf(idList.get(i)));
+                resultArr[i] = obj;
+                toCacheMap.put(keyList.get(i), obj == null ? null : JsonX.toJson(obj));
+            }
+            storage.multiSet(toCacheMap, expireTime, timeUnit);
+        }
+
+        List<Object> list = new ArrayList<>(resultArr.length);
+        for (Object obj : resultArr) {
+            if (obj != null) {
+                list.add(obj);
+            }
+        }
+        return list;
+    }
+
+    private static Method getKeyGetter(Class clz, String property) {
+        return KEY_GETTER_MAP.computeIfAbsent(clz.getName() + "." + property, k -> {
+            try {
+                return clz.getMethod(BeanUtil.getGetter(property));
+            } catch (NoSuchMethodException e) {
+                throw new L3CacheException("No getter of perElementKey: " + k);
+            }
+        });
+    }
+
 }
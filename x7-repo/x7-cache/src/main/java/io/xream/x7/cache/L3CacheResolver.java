@@ -25,10 +25,8 @@ import io.xream.x7.exception.DistributionLockException;
 import io.xream.x7.exception.L3CacheException;
 import io.xream.x7.lock.DistributionLock;
 
-import java.util.Map;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.TimeUnit;
+import java.util.Set;
+import java.util.concurrent.*;
 
 
 public interface L3CacheResolver extends Protection {
@@ -36,80 +34,162 @@ public interface L3CacheResolver extends Protection {
     L3CacheStorage getStorage();
 
     default String resolve(String key, long expireTime, TimeUnit timeUnit, Callable caller) {
+        return resolve(key, expireTime, 0, timeUnit, caller);
+    }
+
+    /**
+     * @param staleTime 0: not stale; or the value stamped with time of filling, <br>
+     *                  after staleTime, returned, and refreshed in background
+     */
+    default String resolve(String key, long expireTime, long staleTime, TimeUnit timeUnit, Callable caller) {
+        String value;
         try {
-            String value = getStorage().get(key, expireTime, timeUnit); //从缓存里获取
-            if (StringUtil.isNotNull(value)) {//如果有
-                PeriodCounter.reset(key);
-                if (DEFAULT_VALUE.equals(value)) //防止缓存击穿
-                    return null;
-                return value;//就返回缓存结果
-            }
+            value = getStorage().get(key, expireTime, timeUnit); //从缓存里获取
         }catch (Exception e) {
-            PeriodCounter.reset(key);
             throw new RuntimeException(ExceptionUtil.getMessage(e));
         }
+        if (StringUtil.isNullOrEmpty(value)) {
+            value = Flight.SINGLE_FLIGHT.share(key, () -> lease(key, expireTime, staleTime, timeUnit, caller)); //本进程内只有一个请求去加载
+        } else if (staleTime > 0 && Stale.isStale(value, timeUnit.toMillis(staleTime))) {
+            refreshInBackground(key, expireTime, staleTime, timeUnit, caller);
+        }
+        if (staleTime > 0) {
+            value = Stale.unstamp(value);
+        }
+        if (DEFAULT_VALUE.equals(value)) //防止缓存击穿
+            return null;
+        return value;
+    }
 
+    /**
+     * one refreshing of the key in process, and in all nodes by lease, <br>
+     * discarded if the executor is full
+     */
+    default void refreshInBackground(String key, long expireTime, long staleTime, TimeUnit timeUnit, Callable caller) {
+        if (!Stale.REFRESHING_SET.add(key))
+            return;
         try {
-            return DistributionLock.by(key).lock(t -> { //分布式锁，锁住资源
+            Stale.REFRESH_EXECUTOR.execute(() -> {
                 try {
-                    Object obj = caller.call();//读数据库或远程调用
-                    String str = JsonX.toJson(obj);//转成JSON字符串
-                    getStorage().set(key, str, expireTime, timeUnit);//然后存到缓存
-                    return str;//锁住资源的人，等待至同步返回查询结果
-                } catch (Throwable e) {
-                    throw new RuntimeException(ExceptionUtil.getMessage(e));
-                }finally {
-                    PeriodCounter.reset(key);
+                    DistributionLock.by(key).lock(Flight.INTERVAL_MILLIS, Flight.LEASE_MILLIS, true,
+                            t -> load(key, expireTime, staleTime, timeUnit, caller));
+                } catch (Exception e) {
+                } finally {
+                    Stale.REFRESHING_SET.remove(key);
                 }
             });
-        } catch (DistributionLockException dle) { // 如果别的请求已经锁了资源
-            PeriodCounter.increment(key);
+        } catch (RejectedExecutionException e) {
+            Stale.REFRESHING_SET.remove(key);
+        }
+    }
+
+    /**
+     * the node holding the lease loads, <br>
+     * the other nodes wait for the notify of filling, no sleeping, <br>
+     * notified but not filled: the loading failed, fail at once, not to load again from all nodes
+     */
+    default String lease(String key, long expireTime, long staleTime, TimeUnit timeUnit, Callable caller) {
+        try {
+            return DistributionLock.by(key).lock(Flight.INTERVAL_MILLIS, Flight.LEASE_MILLIS, true,
+                    t -> load(key, expireTime, staleTime, timeUnit, caller));
+        } catch (DistributionLockException dle) { // 如果别的节点已经在加载
+            CompletableFuture<Void> filled = getStorage().awaitFilled(key);
+            if (filled == null)
+                return load(key, expireTime, staleTime, timeUnit, caller);
             try {
-                Thread.sleep(PeriodCounter.SLEEP_MILLIS);
+                String value = getStorage().get(key, expireTime, timeUnit);
+                if (StringUtil.isNotNull(value))
+                    return value;
+                filled.get(Flight.LEASE_MILLIS, TimeUnit.MILLISECONDS);
+                value = getStorage().get(key, expireTime, timeUnit);
+                if (StringUtil.isNotNull(value))
+                    return value;
+                throw new L3CacheException("Loading failed by the lease holder: " + key);
+            } catch (TimeoutException | ExecutionException e) {
             } catch (InterruptedException e) {
-                PeriodCounter.reset(key);
-                throw new RuntimeException(ExceptionUtil.getMessage(e));
+                Thread.currentThread().interrupt();
+                throw new L3CacheException("Interrupted while waiting for " + key);
+            } finally {
+                filled.complete(null);
             }
-            return resolve(key, expireTime, timeUnit, caller);//递归请求
-        } catch (Exception e) {
-            PeriodCounter.reset(key);
+            return load(key, expireTime, staleTime, timeUnit, caller); // lease expired, load by self
+        }
+    }
+
+    default String load(String key, long expireTime, long staleTime, TimeUnit timeUnit, Callable caller) {
+        try {
+            Object obj = caller.call();//读数据库或远程调用
+            String str = JsonX.toJson(obj);//转成JSON字符串
+            if (staleTime > 0) {
+                str = Stale.stamp(str == null ? DEFAULT_VALUE : str);
+            }
+            getStorage().set(key, str, expireTime, timeUnit);//然后存到缓存
+            return str;
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Throwable e) {
             throw new RuntimeException(ExceptionUtil.getMessage(e));
+        } finally {
+            try {
+                getStorage().notifyFilled(key); // also if failed, the waiters not blocked until lease expired
+            } catch (Exception e) {
+            }
         }
     }
 
 
-    class PeriodCounter {
+    class Flight {
 
-        private final static Map<String, Long> countMap = new ConcurrentHashMap<>();
-        private final static long MAX_COUNT = 40;
-        private final static long SLEEP_MILLIS = 300;
+        private final static SingleFlight SINGLE_FLIGHT = new SingleFlight();
+        private final static int INTERVAL_MILLIS = 1000;
+        private final static int LEASE_MILLIS = 10 * 1000;
+    }
 
-        private static void increment(String key) {
-            key = wrapKey(key);
-            Long count = countMap.get(key);
-            if (count == null);
-            {
-                count = 0L;
-            }
-            if (count >= MAX_COUNT) {
-                reset(key);
-                throw new L3CacheException("SERVER BUSY");
-            }
+    class Stale {
+
+        private final static String STAMP = "~SWR";
+        private final static String SEPARATOR = "~";
+
+        private final static Set<String> REFRESHING_SET = ConcurrentHashMap.newKeySet();
+        private final static ExecutorService REFRESH_EXECUTOR = new ThreadPoolExecutor(
+                1, 4, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(1024),
+                r -> {
+                    Thread thread = new Thread(r, "x7-l3cache-refresh");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
 
-            countMap.put(key,count + 1);
+        private static String stamp(String value) {
+            return STAMP + System.currentTimeMillis() + SEPARATOR + value;
         }
 
-        private static void reset(String key) {
-            key = wrapKey(key);
-            countMap.remove(key);
+        /**
+         * the value without stamp, cached before staleTime set, is stale
+         */
+        private static boolean isStale(String value, long staleMillis) {
+            if (!value.startsWith(STAMP))
+                return true;
+            int i = value.indexOf(SEPARATOR, STAMP.length());
+            if (i < 0)
+                return true;
+            try {
+                long filledAt = Long.parseLong(value.substring(STAMP.length(), i));
+                return System.currentTimeMillis() - filledAt > staleMillis;
+            } catch (NumberFormatException e) {
+                return true;
+            }
         }
 
-        private static String wrapKey(String key) {
-            String threadId = String.valueOf(Thread.currentThread().getId());
-            String k = key + "." + threadId;
-            return k;
+        private static String unstamp(String value) {
+            if (value == null || !value.startsWith(STAMP))
+                return value;
+            int i = value.indexOf(SEPARATOR, STAMP.length());
+            if (i < 0)
+                return value;
+            return value.substring(i + 1);
         }
     }
 
-
 }
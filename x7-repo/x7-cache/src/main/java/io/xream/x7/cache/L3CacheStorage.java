@@ -16,6 +16,10 @@
  */
 package io.xream.x7.cache;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 public interface L3CacheStorage {
@@ -23,4 +27,36 @@ public interface L3CacheStorage {
     void set(String key, String value, long expireTime, TimeUnit timeUnit);
 
     String get(String key, long expireTime, TimeUnit timeUnit);
+
+    default List<String> multiGet(List<String> keyList, long expireTime, TimeUnit timeUnit) {
+        List<String> valueList = new ArrayList<>(keyList.size());
+        for (String key : keyList) {
+            valueList.add(get(key, expireTime, timeUnit));
+        }
+        return valueList;
+    }
+
+    /**
+     * null value cached as DEFAULT_VALUE
+     */
+    default void multiSet(Map<String, String> map, long expireTime, TimeUnit timeUnit) {
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            set(entry.getKey(), entry.getValue(), expireTime, timeUnit);
+        }
+    }
+
+    /**
+     * notify the other nodes waiting for the key
+     */
+    default void notifyFilled(String key) {
+    }
+
+    /**
+     * completed while the key filled by other node, <br>
+     * complete it to stop waiting <br>
+     * null if not supported
+     */
+    default CompletableFuture<Void> awaitFilled(String key) {
+        return null;
+    }
 }
@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.xream.x7.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * local cache in front of L3CacheStorage <br>
+ * bounded by maxSize and maxWeight(length of key and value), LRU evicted in segment <br>
+ * expired lazily on reading, and a few expired eldest removed on writing, no timer
+ * @author Sim
+ */
+public final class L3LocalCache {
+
+    private final static int SEGMENTS = 16;
+    private final static int EXPIRED_REMOVED_ON_WRITING = 4;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder expiredCount = new LongAdder();
+
+    public L3LocalCache(int maxSize, long maxWeight) {
+        int segmentSize = Math.max(1, maxSize / SEGMENTS);
+        long segmentWeight = Math.max(1, maxWeight / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(segmentSize, segmentWeight);
+        }
+    }
+
+    private Segment segment(String key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return segments[h & (SEGMENTS - 1)];
+    }
+
+    public String get(String key) {
+        String value = segment(key).get(key);
+        if (value == null) {
+            missCount.increment();
+        } else {
+            hitCount.increment();
+        }
+        return value;
+    }
+
+    public void put(String key, String value, long expire, TimeUnit timeUnit) {
+        if (value == null || expire <= 0)
+            return;
+        segment(key).put(key, value, System.nanoTime() + timeUnit.toNanos(expire));
+    }
+
+    public void remove(String key) {
+        segment(key).remove(key);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    public long getExpiredCount() {
+        return expiredCount.sum();
+    }
+
+    public double getHitRate() {
+        long hit = getHitCount();
+        long total = hit + getMissCount();
+        return total == 0 ? 1.0 : (double) hit / total;
+    }
+
+    @Override
+    public String toString() {
+        return "L3LocalCache{" +
+                "size=" + size() +
+                ", hitRate=" + getHitRate() +
+                ", evictionCount=" + getEvictionCount() +
+                ", expiredCount=" + getExpiredCount() +
+                '}';
+    }
+
+    private final class Segment {
+
+        private final int maxSize;
+        private final long maxWeight;
+        private long weight;
+        private final LinkedHashMap<String, Cached> map = new LinkedHashMap<>(16, 0.75f, true);
+
+        private Segment(int maxSize, long maxWeight) {
+            this.maxSize = maxSize;
+            this.maxWeight = maxWeight;
+        }
+
+        private synchronized String get(String key) {
+            Cached cached = map.get(key);
+            if (cached == null)
+                return null;
+            if (cached.expireAt - System.nanoTime() < 0) {
+                map.remove(key);
+                weight -= cached.weight;
+                expiredCount.increment();
+                return null;
+            }
+            return cached.value;
+        }
+
+        private synchronized void put(String key, String value, long expireAt) {
+            Cached cached = new Cached(value, expireAt, key.length() + value.length());
+            Cached old = map.put(key, cached);
+            if (old != null) {
+                weight -= old.weight;
+            }
+            weight += cached.weight;
+
+            long now = System.nanoTime();
+            int removed = 0;
+            Iterator<Map.Entry<String, Cached>> ite = map.entrySet().iterator();
+            while (ite.hasNext()) {
+                Map.Entry<String, Cached> eldest = ite.next();
+                if (eldest.getValue() == cached)
+                    break;
+                boolean isExpired = eldest.getValue().expireAt - now < 0;
+                boolean isOver = map.size() > maxSize || weight > maxWeight;
+                if (!isExpired && !isOver)
+                    break;
+                if (isExpired && !isOver && removed >= EXPIRED_REMOVED_ON_WRITING)
+                    break;
+                ite.remove();
+                weight -= eldest.getValue().weight;
+                removed++;
+                if (isExpired) {
+                    expiredCount.increment();
+                } else {
+                    evictionCount.increment();
+                }
+            }
+        }
+
+        private synchronized void remove(String key) {
+            Cached cached = map.remove(key);
+            if (cached != null) {
+                weight -= cached.weight;
+            }
+        }
+
+        private synchronized int size() {
+            return map.size();
+        }
+    }
+
+    private static final class Cached {
+        private final String value;
+        private final long expireAt;
+        private final int weight;
+
+        private Cached(String value, long expireAt, int weight) {
+            this.value = value;
+            this.expireAt = expireAt;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.xream.x7.cache;
+
+import io.xream.x7.common.util.ExceptionUtil;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * one loader of the key in process, <br>
+ * load: the others wait for it, then read the cache it wrote, <br>
+ * not sharing the objects loaded between threads <br>
+ * share: the others share the immutable value it loaded
+ * @author Sim
+ */
+final class SingleFlight {
+
+    private final Map<String, CompletableFuture<Void>> flightMap = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Object>> sharedMap = new ConcurrentHashMap<>();
+
+    /**
+     * @param loader   called by the first thread of the key
+     * @param follower called by the other threads after the loader finished
+     */
+    <T> T load(String key, Callable<T> loader, Callable<T> follower) {
+        CompletableFuture<Void> flight = new CompletableFuture<>();
+        CompletableFuture<Void> existing = flightMap.putIfAbsent(key, flight);
+        try {
+            if (existing != null) {
+                try {
+                    existing.join();
+                } catch (Exception e) {
+                    // the loader failed, try by self
+                }
+                return follower.call();
+            }
+            try {
+                return loader.call();
+            } finally {
+                flightMap.remove(key, flight);
+                flight.complete(null);
+            }
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(ExceptionUtil.getMessage(e));
+        }
+    }
+
+    /**
+     * for String, or other immutable value
+     */
+    <T> T share(String key, Callable<T> loader) {
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = sharedMap.putIfAbsent(key, flight);
+        if (existing != null) {
+            try {
+                return (T) existing.join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException)
+                    throw (RuntimeException) cause;
+                throw new RuntimeException(ExceptionUtil.getMessage(cause));
+            }
+        }
+        try {
+            T t = loader.call();
+            flight.complete(t);
+            return t;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } catch (Exception e) {
+            flight.completeExceptionally(e);
+            throw new RuntimeException(ExceptionUtil.getMessage(e));
+        } finally {
+            sharedMap.remove(key, flight);
+        }
+    }
+}
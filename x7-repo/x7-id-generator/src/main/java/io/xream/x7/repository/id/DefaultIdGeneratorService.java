@@ -16,20 +16,133 @@
  */
 package io.xream.x7.repository.id;
 
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 
+/**
+ * ids handed out from a local segment, reserved by one increment of segmentSize, <br>
+ * the next segment prefetched when the current 80% used
+ */
 public class DefaultIdGeneratorService implements IdGeneratorService {
 
+    private final static ExecutorService PREFETCH_EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "x7-id-prefetch");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Map<String, Allocator> allocatorMap = new ConcurrentHashMap<>();
+
+    private int segmentSize = 1;
+    private BiConsumer<String, Long> segmentListener;
+
     private IdGeneratorPolicy idGeneratorPolicy;
     public void setIdGeneratorPolicy(IdGeneratorPolicy policy){
         this.idGeneratorPolicy = policy;
+        this.allocatorMap.clear();
+    }
+
+    /**
+     * 1: one increment per id, without segment, <br>
+     * also if the policy does not support segment
+     */
+    public void setSegmentSize(int segmentSize) {
+        this.segmentSize = Math.max(segmentSize, 1);
     }
+
+    /**
+     * notified with (clzName, ceiling) when a segment reserved, <br>
+     * or with (clzName, id) per id if segmentSize == 1
+     */
+    public void setSegmentListener(BiConsumer<String, Long> segmentListener) {
+        this.segmentListener = segmentListener;
+    }
+
     @Override
     public long createId(String clzName) {
-        return this.idGeneratorPolicy.createId(clzName);
+        if (this.segmentSize == 1 || !this.idGeneratorPolicy.isSegmentSupported()) {
+            long id = this.idGeneratorPolicy.createId(clzName);
+            notifySegment(clzName, id);
+            return id;
+        }
+        return this.allocatorMap.computeIfAbsent(clzName, Allocator::new).next();
     }
 
     @Override
     public IdGeneratorPolicy getIdGeneratorPolicy() {
         return this.idGeneratorPolicy;
     }
+
+    private void notifySegment(String clzName, long ceiling) {
+        if (this.segmentListener != null && ceiling > 0) {
+            this.segmentListener.accept(clzName, ceiling);
+        }
+    }
+
+    private Segment reserve(String clzName) {
+        final int size = this.segmentSize;
+        long ceiling = this.idGeneratorPolicy.reserve(clzName, size);
+        notifySegment(clzName, ceiling);
+        return new Segment(ceiling - size, ceiling);
+    }
+
+    private static class Segment {
+        private final long ceiling;
+        private final long prefetchAt;
+        private final AtomicLong cursor;
+
+        private Segment(long floor, long ceiling) {
+            this.ceiling = ceiling;
+            this.prefetchAt = floor + Math.max((ceiling - floor) * 4 / 5, 1);
+            this.cursor = new AtomicLong(floor);
+        }
+    }
+
+    private class Allocator {
+        private final String clzName;
+        private volatile Segment current;
+        private CompletableFuture<Segment> next;
+
+        private Allocator(String clzName) {
+            this.clzName = clzName;
+        }
+
+        private long next() {
+            for (;;) {
+                Segment segment = this.current;
+                if (segment != null) {
+                    long id = segment.cursor.incrementAndGet();
+                    if (id <= segment.ceiling) {
+                        if (id == segment.prefetchAt) {
+                            prefetch();
+                        }
+                        return id;
+                    }
+                }
+                switchSegment(segment);
+            }
+        }
+
+        private synchronized void prefetch() {
+            if (this.next != null)
+                return;
+            this.next = CompletableFuture.supplyAsync(() -> reserve(this.clzName), PREFETCH_EXECUTOR);
+        }
+
+        private synchronized void switchSegment(Segment exhausted) {
+            if (this.current != exhausted)
+                return;
+            Segment segment = null;
+            if (this.next != null) {
+                try {
+                    segment = this.next.join();
+                } catch (Exception e) {
+                }
+                this.next = null;
+            }
+            this.current = segment != null ? segment : reserve(this.clzName);
+        }
+    }
 }
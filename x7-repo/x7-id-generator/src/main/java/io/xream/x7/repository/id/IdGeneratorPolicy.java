@@ -25,5 +25,30 @@ public interface IdGeneratorPolicy {
 
     long createId(String clzName);
 
+    /**
+     * reserve size ids by one increment, return the ceiling, <br>
+     * the segment: (ceiling - size, ceiling] <br>
+     * default: createId until size ids in a row, the ids of a broken run, <br>
+     * taken by other nodes between, skipped
+     */
+    default long reserve(String clzName, int size) {
+        long id = createId(clzName);
+        int run = 1;
+        while (run < size) {
+            long next = createId(clzName);
+            run = next == id + 1 ? run + 1 : 1;
+            id = next;
+        }
+        return id;
+    }
+
+    /**
+     * false: reserve is the default, one createId per id, <br>
+     * so the service creates the ids one by one, whatever the segment size
+     */
+    default boolean isSegmentSupported() {
+        return false;
+    }
+
     void onStart(List<IdGenerator> idGeneratorList);
 }
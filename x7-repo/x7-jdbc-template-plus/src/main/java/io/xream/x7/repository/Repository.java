@@ -21,6 +21,8 @@ import io.xream.x7.common.bean.RowHandler;
 import io.xream.x7.common.bean.condition.RefreshCondition;
 import io.xream.x7.common.web.Page;
 
+import java.sql.Statement;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -93,6 +95,61 @@ public interface Repository extends QueryForCache{
 
 	boolean createBatch(List<? extends Object> objList);
 
+	/**
+	 * @return per row, the count updated, or Statement.SUCCESS_NO_INFO <br>
+	 * default: by createBatch, without the count of each row
+	 */
+	default int[] createBatchCounts(List<? extends Object> objList) {
+		int[] result = new int[objList.size()];
+		Arrays.fill(result, createBatch(objList) ? Statement.SUCCESS_NO_INFO : Statement.EXECUTE_FAILED);
+		return result;
+	}
+
+	/**
+	 * default: createOrReplace one by one
+	 */
+	default int[] createOrReplaceBatch(List<? extends Object> objList) {
+		int[] result = new int[objList.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = createOrReplace(objList.get(i)) ? 1 : 0;
+		}
+		return result;
+	}
+
+	/**
+	 * default: refresh one by one
+	 */
+	default int[] refreshBatch(List<? extends Object> objList) {
+		int[] result = new int[objList.size()];
+		for (int i = 0; i < result.length; i++) {
+			Object obj = objList.get(i);
+			result[i] = refresh(obj) ? 1 : 0;
+		}
+		return result;
+	}
+
+	/**
+	 * default: remove one by one
+	 */
+	default <T> int[] removeBatch(Class<T> clz, List<? extends Object> keyOneList) {
+		int[] result = new int[keyOneList.size()];
+		for (int i = 0; i < result.length; i++) {
+			final Object key = keyOneList.get(i);
+			result[i] = remove(new KeyOne<T>() {
+				@Override
+				public Object get() {
+					return key;
+				}
+
+				@Override
+				public Class<T> getClzz() {
+					return clz;
+				}
+			}) ? 1 : 0;
+		}
+		return result;
+	}
+
 	<T> T getOne(T condition);
 
     <T> boolean refresh(T t);
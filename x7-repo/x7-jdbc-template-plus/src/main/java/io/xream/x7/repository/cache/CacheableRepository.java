@@ -263,6 +263,67 @@ public final class CacheableRepository implements Repository, Manuable {
         return flag;
     }
 
+    @Override
+    public int[] createBatchCounts(List<? extends Object> objList) {
+        if (objList.isEmpty())
+            return new int[0];
+
+        Class clz = objList.get(0).getClass();
+        Parsed parsed = Parser.get(clz);
+        int[] result = this.dataTransform.createBatchCounts(objList);
+        if (isCacheEnabled(parsed))
+            cacheResolver.markForRefresh(clz);
+
+        return result;
+    }
+
+    /**
+     * the cache of the class refreshed once, not per key
+     */
+    @Override
+    public int[] createOrReplaceBatch(List<? extends Object> objList) {
+        if (objList.isEmpty())
+            return new int[0];
+
+        Class clz = objList.get(0).getClass();
+        Parsed parsed = Parser.get(clz);
+        for (Object obj : objList) {
+            CreateOrReplaceOptimization.tryToGetId(obj, parsed);
+        }
+        int[] result = this.dataTransform.createOrReplaceBatch(objList);
+        if (isCacheEnabled(parsed))
+            cacheResolver.refresh(clz);
+
+        return result;
+    }
+
+    @Override
+    public int[] refreshBatch(List<? extends Object> objList) {
+        if (objList.isEmpty())
+            return new int[0];
+
+        Class clz = objList.get(0).getClass();
+        Parsed parsed = Parser.get(clz);
+        int[] result = this.dataTransform.refreshBatch(objList);
+        if (isCacheEnabled(parsed))
+            cacheResolver.refresh(clz);
+
+        return result;
+    }
+
+    @Override
+    public <T> int[] removeBatch(Class<T> clz, List<? extends Object> keyOneList) {
+        if (keyOneList.isEmpty())
+            return new int[0];
+
+        Parsed parsed = Parser.get(clz);
+        int[] result = this.dataTransform.removeBatch(clz, keyOneList);
+        if (isCacheEnabled(parsed))
+            cacheResolver.refresh(clz);
+
+        return result;
+    }
+
 
     @Override
     public <T> T get(KeyOne<T> keyOne) {
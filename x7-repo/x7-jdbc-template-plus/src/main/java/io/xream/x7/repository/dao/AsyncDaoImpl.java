@@ -16,646 +16,448 @@
  */
 package io.xream.x7.repository.dao;
 
-import io.xream.x7.common.async.HeartBeat;
-import io.xream.x7.common.async.HeartBeator;
-import io.xream.x7.common.bean.BeanElement;
 import io.xream.x7.common.bean.Parsed;
 import io.xream.x7.common.bean.Parser;
 import io.xream.x7.common.repository.X;
-import io.xream.x7.repository.mapper.Mapper;
+import io.xream.x7.common.util.ExceptionUtil;
+import io.xream.x7.repository.exception.PersistenceException;
 import io.xream.x7.repository.mapper.MapperFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.sql.DataSource;
-import java.lang.reflect.Method;
+import java.lang.reflect.Field;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 
 /**
- * 
+ * write-behind, one pipeline per entity class <br>
+ * producers offer the keyOne to a lock-free queue, the operations coalesced per keyOne: <br>
+ * the last refresh wins, written as the full row, null and 0 included, remove cancels the pending create <br>
+ * flushed when the pipeline reaches batch-size, or every flush-interval, by the writers in parallel, <br>
+ * one writer per pipeline at a time, so the order of one key kept <br>
+ * pending keys bounded by capacity, producer blocked when full
  * 
  * @author Sim
  * 
  */
 @Component
-public class AsyncDaoImpl implements HeartBeat, AsyncDao {
+public class AsyncDaoImpl implements AsyncDao, InitializingBean, DisposableBean {
 
-	/**
-	 * 批处理最多条数
-	 */
-	public static int MAX_BATCH = 500;
-	/**
-	 * 延时1分钟
-	 */
-	private final static int HEARTBEAT_DELAY = 600000;
-	private long heartBeatTime = 0; // 降低心跳的实时性来提高性能
+	private Logger logger = LoggerFactory.getLogger(AsyncDaoImpl.class);
 
-	private final ExecutorService mainExecutor = Executors.newSingleThreadExecutor();
+	@Value("${x7.async.batch-size:500}")
+	private int batchSize = 500;
 
-	private final ExecutorService inner = Executors.newSingleThreadExecutor();
+	@Value("${x7.async.flush-interval:1000}")
+	private long flushInterval = 1000;
 
+	@Value("${x7.async.writers:4}")
+	private int writers = 4;
 
-	public AsyncDaoImpl() {
-		HeartBeator.add(this);
-	}
+	@Value("${x7.async.capacity:100000}")
+	private int capacity = 100000;
+
+	/**
+	 * max millis of the producer blocked by the full pipelines
+	 */
+	@Value("${x7.async.block-timeout:10000}")
+	private long blockTimeout = 10000;
+
+	@Autowired
+	private Dao dao;
 
 	@Autowired
 	private DataSource dataSource;
 
-	public void setDataSource(DataSource dataSource) {
-		this.dataSource = dataSource;
-	}
+	private final Map<Class, Pipeline> pipelineMap = new ConcurrentHashMap<>();
 
-	@SuppressWarnings("rawtypes")
-	private  Map<Class, ArrayList<Object>> creationMap = new HashMap<Class, ArrayList<Object>>();
+	private Semaphore permits;
+	private ExecutorService writerExecutor;
+	private ScheduledExecutorService timer;
 
-	@SuppressWarnings("rawtypes")
-	private  Map<Class, ArrayList<Object>> refreshMap = new HashMap<Class, ArrayList<Object>>();
-	
-	@SuppressWarnings("rawtypes")
-	private  Map<Class, ArrayList<Object>> removeMap = new HashMap<Class, ArrayList<Object>>();
-	
-	private Connection getConnection() throws SQLException {
-		if (dataSource == null){
-			System.err.println("No DataSource");
-		}
-		return dataSource.getConnection();
-	}
-	
-	private static void close (PreparedStatement pstmt){
-		if (pstmt != null){
-			try{
-				pstmt.close();
-			}catch(Exception e){
-				e.printStackTrace();
-			}
-		}
+	private final AtomicInteger queueDepth = new AtomicInteger();
+	private final AtomicLong flushCount = new AtomicLong();
+	private final AtomicLong flushedCount = new AtomicLong();
+	private final AtomicLong failedCount = new AtomicLong();
+	private final AtomicLong totalFlushMillis = new AtomicLong();
+	private volatile long lastFlushMillis;
+	private volatile long maxFlushMillis;
+	private volatile long lastLagMillis;
+
+	public void setDao(Dao dao) {
+		this.dao = dao;
 	}
 
-	/**
-	 * 放回连接池,<br>
-	 * 连接池已经重写了关闭连接的方法
-	 */
-	private static void close(Connection conn) {
-		try {
-			if (conn != null){
-				conn.close();
-			}
-		} catch (SQLException e) {
-			e.printStackTrace();
-		}
+	public void setDataSource(DataSource dataSource) {
+		this.dataSource = dataSource;
 	}
 
-	/*
-	 *
-	 */
-	@Override
-	public void create(final Object obj) {
-		mainExecutor.submit(new Runnable() {
-
-			@SuppressWarnings("rawtypes")
-			@Override
-			public void run()  {
-
-				/*
-				 * 加入需要持久化的的对象MAP
-				 */
-				Class clz = obj.getClass();
-				
-				filterTryToCreate(clz);
-				
-				ArrayList<Object> objectList = creationMap.get(clz);
-				if (objectList == null) {
-					objectList = new ArrayList<Object>();
-					creationMap.put(clz, objectList);
-				}
-				/*
-				 * 如果不存在，就添加
-				 */
-				if (!objectList.contains(obj)) {
-					objectList.add(obj);
-				}
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
 
-			}
-		});
+	public void setFlushInterval(long flushInterval) {
+		this.flushInterval = flushInterval;
+	}
 
+	public void setWriters(int writers) {
+		this.writers = writers;
 	}
-	
-	/*
-	 *
-	 */
-	@Override
-	public void refresh(final Object obj) {
-		mainExecutor.submit(new Runnable() {
-
-			@SuppressWarnings("rawtypes")
-			@Override
-			public void run()  {
-				/*
-				 * 加入需要持久化的的对象MAP
-				 */
-				Class clz = obj.getClass();
-				
-				filterTryToCreate(clz);
-				
-				ArrayList<Object> objectList = refreshMap.get(clz);
-				if (objectList == null) {
-					objectList = new ArrayList<Object>();
-					refreshMap.put(clz, objectList);
-				}
-				/*
-				 * 如果不存在，就添加
-				 */
-				if (!objectList.contains(obj)) {
-					objectList.add(obj);
-				}
 
-			}
-		});
+	public void setCapacity(int capacity) {
+		this.capacity = capacity;
+	}
 
+	public void setBlockTimeout(long blockTimeout) {
+		this.blockTimeout = blockTimeout;
 	}
 
-	/*
-	 *
-	 */
 	@Override
-	public void remove(final Object obj) {
-		mainExecutor.submit(new Runnable() {
-
-			@SuppressWarnings("rawtypes")
-			@Override
-			public void run()  {
-
-				/*
-				 * 加入需要持久化的的对象MAP
-				 */
-				Class clz = obj.getClass();
-				
-				filterTryToCreate(clz);
-				
-				ArrayList<Object> objectList = removeMap.get(clz);
-				if (objectList == null) {
-					objectList = new ArrayList<Object>();
-					removeMap.put(clz, objectList);
-				}
-				/*
-				 * 如果不存在，就添加
-				 */
-				if (!objectList.contains(obj)) {
-					objectList.add(obj);
-				}
-
-			}
+	public void afterPropertiesSet() {
+		this.batchSize = Math.max(1, this.batchSize);
+		this.flushInterval = Math.max(10, this.flushInterval);
+		this.permits = new Semaphore(Math.max(this.batchSize, this.capacity));
+		this.writerExecutor = Executors.newFixedThreadPool(Math.max(1, this.writers), r -> {
+			Thread t = new Thread(r, "x7-async-writer");
+			t.setDaemon(true);
+			return t;
 		});
-
+		this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "x7-async-timer");
+			t.setDaemon(true);
+			return t;
+		});
+		this.timer.scheduleWithFixedDelay(this::doImmediately, this.flushInterval, this.flushInterval, TimeUnit.MILLISECONDS);
 	}
-	/**
-	 * 批处理
-	 * 
-	 * @throws Exception
-	 */
-	private void batch() throws Exception {
 
-		/*
-		 * 创建批处理
-		 */
-		stepCreate();
+	@Override
+	public void create(Object obj) {
+		offer(obj, Op.CREATE);
+	}
 
-		/*
-		 * 更新批处理
-		 */
-		stepRefresh();
-		
-		/*
-		 * 删除处理
-		 */
-		stepRemove();
+	@Override
+	public void refresh(Object obj) {
+		offer(obj, Op.REFRESH);
+	}
 
+	@Override
+	public void remove(Object obj) {
+		offer(obj, Op.REMOVE);
 	}
 
-	@SuppressWarnings("rawtypes")
-	private void stepCreate() throws Exception {
-		if (creationMap.size() == 0)
-			return;
-		/*
-		 * 执行前的拷贝
-		 */
-		final Map<Class, ArrayList<Object>> tempCreationMap = new HashMap<Class, ArrayList<Object>>();
-		tempCreationMap.putAll(creationMap);
-		creationMap.clear();
+	private void offer(final Object obj, final int type) {
 
-		/*
-		 * 切换内部线程处理
-		 */
-		inner.execute(new Runnable() {
+		Pipeline pipeline = pipelineMap.computeIfAbsent(obj.getClass(), this::newPipeline);
+		Object keyOne = pipeline.keyOne(obj, type);
 
-			@Override
-			public void run() {
-				try {
-					/*
-					 * 执行批处理
-					 */
-					executeCreate(tempCreationMap);
-				} catch (Exception e) {
-					e.printStackTrace();
-				}
+		acquire();
 
+		final int[] delta = {0};
+		pipeline.pendingMap.compute(keyOne, (k, op) -> {
+			Op next = op == null ? new Op() : op;
+			next.apply(type, obj);
+			if (next.isEmpty()) {
+				delta[0] = op == null ? 0 : -1;
+				return null;
 			}
+			delta[0] = op == null ? 1 : 0;
+			return next;
 		});
 
+		if (delta[0] == 1) {
+			pipeline.keyQueue.offer(keyOne);
+			queueDepth.incrementAndGet();
+			if (pipeline.depth.incrementAndGet() >= this.batchSize) {
+				schedule(pipeline, false);
+			}
+			return;
+		}
+		this.permits.release();
+		if (delta[0] == -1) {
+			this.permits.release();
+			queueDepth.decrementAndGet();
+			pipeline.depth.decrementAndGet();
+		}
 	}
 
-	/**
-	 * 批处理的执行<br>
-	 * 在内部线程里调用
-	 */
-	@SuppressWarnings({ "rawtypes" })
-	private void executeCreate(final Map<Class, ArrayList<Object>> tempMap)
-			throws Exception {
-		for (Class clz : tempMap.keySet()) {
-
-			ArrayList<Object> objList = tempMap.get(clz);
-			
-			String sql = MapperFactory.getSql(clz, Mapper.CREATE);
-			
-			List<BeanElement> eles = MapperFactory.getElementList(clz);
-			
-			/*
-			 * 分段批处理，每段不超过MAX_BATCH
-			 */
-			int size = objList.size();
-			int times = size / MAX_BATCH + 1;
-
-			for (int i = 0; i < times; i++) {
-
-				int segment = 0;
-				if (i + 1 == times) {
-					segment = size % MAX_BATCH;
-					if (segment == 0){
-						break;
-					}
-				}else{
-					segment = MAX_BATCH;
-				}
-				
-				int fromIndex = i * MAX_BATCH;
-				List<Object> subList = objList.subList(fromIndex, fromIndex + segment);
-				batchCreate(subList, sql, eles);
-				
-			}
+	private void acquire() {
+		if (this.permits.tryAcquire())
+			return;
+		doImmediately();
+		try {
+			if (this.permits.tryAcquire(this.blockTimeout, TimeUnit.MILLISECONDS))
+				return;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		throw new PersistenceException("Async pipelines full, queueDepth: " + queueDepth.get());
+	}
 
+	private void schedule(final Pipeline pipeline, final boolean all) {
+		if (!pipeline.scheduled.compareAndSet(false, true))
+			return;
+		try {
+			this.writerExecutor.execute(() -> flush(pipeline, all));
+		} catch (Exception e) {
+			pipeline.scheduled.set(false);
+			logger.error("Async flush rejected: " + ExceptionUtil.getMessage(e));
 		}
 	}
+
 	/**
-	 * 批处理，对象转SQL并完成插入
-	 * @param objList
-	 * @param sql
-	 * @param eles
+	 * in the writer thread, drain the batches <br>
+	 * all: drain till empty, or drain the full batches only
 	 */
-	private void batchCreate(List<Object> objList, String sql, List<BeanElement> eles) {
-		
-		Connection conn = null;
-		PreparedStatement pstmt = null;
+	private void flush(Pipeline pipeline, boolean all) {
 		try {
-			conn = getConnection();
-			conn.setAutoCommit(false);
-			pstmt = conn.prepareStatement(sql);
-			
-			Parsed parsed = Parser.get(objList.get(0).getClass());
-			
-			for (Object obj : objList) {
-
-				int i = 1;
-				for (BeanElement ele : eles) {
-
-					Method method = null;
-					try {
-						method = obj.getClass().getSuperclass()
-								.getDeclaredMethod(ele.getter);
-					} catch (NoSuchMethodException e) {
-						method = obj.getClass().getDeclaredMethod(ele.getter);
-					}
-					Object value = method.invoke(obj);
-					pstmt.setObject(i++, value);
-				}
-
-				pstmt.addBatch();
-			}
-
-			pstmt.executeBatch();
-			conn.commit();
-		} catch (Exception e) {
-			e.printStackTrace();
-			try {
-				pstmt.clearBatch();
-				conn.rollback();
-			} catch (SQLException e1) {
-				e1.printStackTrace();
+			while (all || pipeline.depth.get() >= this.batchSize) {
+				if (!flushBatch(pipeline))
+					break;
 			}
 		} finally {
-			try {
-				pstmt.close();
-				conn.setAutoCommit(true);
-			} catch (SQLException e) {
-				e.printStackTrace();
-			}
-			close(conn);
+			pipeline.scheduled.set(false);
+		}
+		if (pipeline.depth.get() >= this.batchSize) {
+			schedule(pipeline, false);
 		}
-
 	}
-	
-	@SuppressWarnings("rawtypes")
-	private void stepRemove() throws Exception {
-		if (removeMap.size() == 0)
-			return;
-		/*
-		 * 执行前的拷贝
-		 */
-		final Map<Class, ArrayList<Object>> tempRefreshMap = new HashMap<Class, ArrayList<Object>>();
-		tempRefreshMap.putAll(removeMap);
-		removeMap.clear();
 
-		/*
-		 * 切换内部线程处理
-		 */
-		inner.execute(new Runnable() {
+	private boolean flushBatch(Pipeline pipeline) {
+
+		List<Object> removeList = new ArrayList<>();
+		List<Object> createList = new ArrayList<>();
+		List<Object> refreshList = new ArrayList<>();
+
+		long now = System.currentTimeMillis();
+		long since = now;
+		int taken = 0;
+		Object keyOne;
+		while (taken < this.batchSize && (keyOne = pipeline.keyQueue.poll()) != null) {
+			Op op = pipeline.pendingMap.remove(keyOne);
+			if (op == null)
+				continue;
+			taken++;
+			since = Math.min(since, op.since);
+			if (op.remove)
+				removeList.add(keyOne);
+			if (op.create != null)
+				createList.add(op.create);
+			if (op.refresh != null)
+				refreshList.add(op.refresh);
+		}
+		if (taken == 0)
+			return false;
 
-			@Override
-			public void run() {
-				try {
-					/*
-					 * 执行批处理
-					 */
-					executeRemove(tempRefreshMap);
-				} catch (Exception e) {
-					e.printStackTrace();
-				}
+		queueDepth.addAndGet(-taken);
+		pipeline.depth.addAndGet(-taken);
+		this.permits.release(taken);
 
-			}
-		});
+		long startTime = System.currentTimeMillis();
+		try {
+			if (!removeList.isEmpty())
+				this.dao.removeBatch(pipeline.clz, removeList);
+			if (!createList.isEmpty())
+				this.dao.createBatch(createList);
+			if (!refreshList.isEmpty())
+				this.dao.refreshFullBatch(refreshList);
+			flushedCount.addAndGet(taken);
+		} catch (Exception e) {
+			failedCount.addAndGet(taken);
+			logger.error("Async flush failed, " + pipeline.clz.getName() + ", lost: " + taken + ", " + ExceptionUtil.getMessage(e));
+		}
+		long endTime = System.currentTimeMillis();
+
+		long millis = endTime - startTime;
+		flushCount.incrementAndGet();
+		totalFlushMillis.addAndGet(millis);
+		lastFlushMillis = millis;
+		if (millis > maxFlushMillis) {
+			maxFlushMillis = millis;
+		}
+		lastLagMillis = endTime - since;
 
+		return true;
 	}
 
 	/**
-	 * 批处理的执行<br>
-	 * 在内部线程里调用
+	 * <br>
+	 * 关机时, 或业务上要求立即执行时 调用<br>
+	 * 不必等待定时处理, 所有pipeline交给writer线程立即处理<br>
+	 * 关机时由destroy()在当前线程里执行完毕<br>
+	 * <br>
 	 */
-	@SuppressWarnings("rawtypes")
-	private void executeRemove(final Map<Class, ArrayList<Object>> tempMap)
-			throws Exception {
-		for (Class clz : tempMap.keySet()) {
+	public void doImmediately() {
+		for (Pipeline pipeline : pipelineMap.values()) {
+			if (pipeline.depth.get() > 0 || !pipeline.keyQueue.isEmpty()) {
+				schedule(pipeline, true);
+			}
+		}
+	}
 
-			String sql = MapperFactory.getSql(clz, Mapper.REMOVE);
+	@Override
+	public void destroy() throws Exception {
+		if (this.timer == null)
+			return;
+		this.timer.shutdown();
+		this.writerExecutor.shutdown();
+		this.writerExecutor.awaitTermination(this.blockTimeout, TimeUnit.MILLISECONDS);
+		for (Pipeline pipeline : pipelineMap.values()) {
+			boolean flushed = true;
+			while (flushed) {
+				flushed = flushBatch(pipeline);
+			}
+		}
+	}
 
-			Connection conn = null;
-			PreparedStatement pstmt = null;
-			try {
-				conn = getConnection();
-				conn.setAutoCommit(false);
-				pstmt = conn.prepareStatement(sql);
-				
-				Parsed parsed = Parser.get(clz);
-				String keyOne = parsed.getKey(X.KEY_ONE);
-				
-				ArrayList<Object> objList = tempMap.get(clz);
-				for (Object obj : objList) {
-
-					int i = 1;
-					
-					SqlUtil.adpterSqlKey(pstmt, keyOne, obj, i);
-
-					pstmt.addBatch();
-				}
+	/**
+	 * pending keys of all pipelines
+	 */
+	public int getQueueDepth() {
+		return queueDepth.get();
+	}
 
-				pstmt.executeBatch();
-				conn.commit();
-			}  catch (Exception e) {
-				e.printStackTrace();
-				pstmt.clearBatch();
-				conn.rollback();
-			} finally {
-				try {
-					conn.setAutoCommit(true);
-					pstmt.close();
-				} catch (SQLException e) {
-					e.printStackTrace();
-				}
-				close(conn);
-			}
+	public int getQueueDepth(Class clz) {
+		Pipeline pipeline = pipelineMap.get(clz);
+		return pipeline == null ? 0 : pipeline.depth.get();
+	}
 
-		}
+	public long getFlushCount() {
+		return flushCount.get();
 	}
 
-	
-	
-	@SuppressWarnings("rawtypes")
-	private void stepRefresh() throws Exception {
-		if (refreshMap.size() == 0)
-			return;
-		/*
-		 * 执行前的拷贝
-		 */
-		final Map<Class, ArrayList<Object>> tempRefreshMap = new HashMap<Class, ArrayList<Object>>();
-		tempRefreshMap.putAll(refreshMap);
-		refreshMap.clear();
+	/**
+	 * keys written
+	 */
+	public long getFlushedCount() {
+		return flushedCount.get();
+	}
 
-		/*
-		 * 切换内部线程处理
-		 */
-		inner.execute(new Runnable() {
+	/**
+	 * keys lost by the failed flush
+	 */
+	public long getFailedCount() {
+		return failedCount.get();
+	}
 
-			@Override
-			public void run() {
-				try {
-					/*
-					 * 执行批处理
-					 */
-					executeRefresh(tempRefreshMap);
-				} catch (Exception e) {
-					e.printStackTrace();
-				}
+	/**
+	 * millis of the last batch written to db
+	 */
+	public long getLastFlushMillis() {
+		return lastFlushMillis;
+	}
 
-			}
-		});
+	public long getMaxFlushMillis() {
+		return maxFlushMillis;
+	}
 
+	public long getAvgFlushMillis() {
+		long count = flushCount.get();
+		return count == 0 ? 0 : totalFlushMillis.get() / count;
 	}
-	
 
 	/**
-	 * 批处理的执行<br>
-	 * 在内部线程里调用
+	 * millis from the oldest key offered to the last batch written
 	 */
-	@SuppressWarnings({ "rawtypes"})
-	private void executeRefresh(final Map<Class, ArrayList<Object>> tempMap)
-			throws Exception {
-		for (Class clz : tempMap.keySet()) {
-			
-			ArrayList<Object> objList = tempMap.get(clz);
-			
-			String sql = MapperFactory.getSql(clz, Mapper.REFRESH);
-			
-			List<BeanElement> eles = MapperFactory.getElementList(clz);
-
-			/*
-			 * 分段批处理，每段不超过MAX_BATCH
-			 */
-			int size = objList.size();
-			int times = size / MAX_BATCH + 1;
-
-			for (int i = 0; i < times; i++) {
-
-				int segment = 0;
-				if (i + 1 == times) {
-					segment = size % MAX_BATCH;
-					if (segment == 0){
-						break;
-					}
-				}else{
-					segment = MAX_BATCH;
-				}
-				
-				int fromIndex = i * MAX_BATCH;
-				List<Object> subList = objList.subList(fromIndex, fromIndex + segment);
-				batchRefresh(subList, sql, eles);
-				
-			}
+	public long getLastLagMillis() {
+		return lastLagMillis;
+	}
 
-		}
+	private Pipeline newPipeline(Class clz) {
+		filterTryToCreate(clz);
+		return new Pipeline(clz);
 	}
-	
-	private void batchRefresh(List<Object> objList, String sql, List<BeanElement> eles) {
-		Connection conn = null;
-		PreparedStatement pstmt = null;
-		try {
-			conn = getConnection();
-			conn.setAutoCommit(false);
-			pstmt = conn.prepareStatement(sql);
-			
-			Parsed parsed = Parser.get(objList.get(0).getClass());
-			String keyOne = parsed.getKey(X.KEY_ONE);
-			
-			for (Object obj : objList) {
-
-				int i = 1;
-				for (BeanElement ele : eles) {
-					
-					if (ele.property.equals(keyOne) ) {
-						continue;
-					}
-					
-
-					Method method = null;
-					try {
-						method = obj.getClass().getSuperclass()
-								.getDeclaredMethod(ele.getter);
-					} catch (NoSuchMethodException e) {
-						method = obj.getClass().getDeclaredMethod(ele.getter);
-					}
-					Object value = method.invoke(obj);
-					pstmt.setObject(i++, value);
-				}
-				
-				/*
-				 * 处理KEY
-				 */
-				SqlUtil.adpterSqlKey(pstmt, keyOne, obj, i);
 
-				pstmt.addBatch();
-			}
+	private static class Pipeline {
+		private final Class clz;
+		private final Field keyField;
+		private final Queue<Object> keyQueue = new ConcurrentLinkedQueue<>();
+		private final Map<Object, Op> pendingMap = new ConcurrentHashMap<>();
+		private final AtomicInteger depth = new AtomicInteger();
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+
+		private Pipeline(Class clz) {
+			this.clz = clz;
+			Parsed parsed = Parser.get(clz);
+			this.keyField = parsed.getKeyField(X.KEY_ONE);
+		}
 
-			pstmt.executeBatch();
-			conn.commit();
-		}  catch (Exception e) {
-			e.printStackTrace();
+		/**
+		 * create without keyOne, with auto increment id, never coalesced
+		 */
+		private Object keyOne(Object obj, int type) {
+			Object keyOne;
 			try {
-				pstmt.clearBatch();
-				conn.rollback();
-			} catch (SQLException e1) {
-				e1.printStackTrace();
+				keyOne = keyField.get(obj);
+			} catch (Exception e) {
+				throw new PersistenceException(ExceptionUtil.getMessage(e));
 			}
-		} finally {
-			try {
-				conn.setAutoCommit(true);
-				pstmt.close();
-			} catch (SQLException e) {
-				e.printStackTrace();
+			if (keyOne == null || (keyOne instanceof Number && ((Number) keyOne).longValue() == 0)) {
+				if (type == Op.CREATE)
+					return new Object();
+				throw new PersistenceException("Async write without keyOne: " + obj);
 			}
-			close(conn);
+			return keyOne;
 		}
 	}
-	
-	/**
-	 * 内部机制, 永远不能调用此方法
-	 */
-	@Override
-	@Deprecated
-	public void tick(long now) {
-		onHeartBeat(now);
-
-	}
 
 	/**
-	 * 定时处理
+	 * the pending operations of one key, written in order: remove, create, refresh
 	 */
-	private void onHeartBeat(final long now) {
-		mainExecutor.submit(new Runnable() {
-
-			@SuppressWarnings("rawtypes")
-			@Override
-			public void run()  {
-				if (heartBeatTime == 0){
-					heartBeatTime = now;
-					return;
-				}
-				if (now - heartBeatTime >= HEARTBEAT_DELAY) {
-					heartBeatTime = now;
-					/*
-					 * 定时批处理
-					 */
-					try {
-						batch();
-					}catch (Exception e){
-						e.printStackTrace();
+	private static class Op {
+		private final static int CREATE = 0;
+		private final static int REFRESH = 1;
+		private final static int REMOVE = 2;
+
+		private final long since = System.currentTimeMillis();
+		private boolean remove;
+		private Object create;
+		private Object refresh;
+
+		private void apply(int type, Object obj) {
+			switch (type) {
+				case CREATE:
+					create = obj;
+					refresh = null;
+					break;
+				case REFRESH:
+					refresh = obj;
+					break;
+				default:
+					if (create == null) {
+						remove = true;
 					}
-				}
+					create = null;
+					refresh = null;
 			}
-		});
+		}
 
+		private boolean isEmpty() {
+			return !remove && create == null && refresh == null;
+		}
 	}
 
-	/**
-	 * <br>
-	 * 关机时, 或业务上要求立即执行时 调用<br>
-	 * 不必等待定时处理,调用后, DAO线程将立即处理<br>
-	 * 在没有了在线玩家的情况下,可以保证数据的完整性<br>
-	 * 设计上, 没有在shutDownHook的线程里运行, 如何保证执行完毕 ? <br>
-	 * 建议在shutDownHook的最后一步调用Thread.sleep(?) <br>
-	 * <br>
-	 */
-	public void doImmediately() {
-		mainExecutor.submit(new Runnable() {
-
-			@SuppressWarnings("rawtypes")
-			@Override
-			public void run()  {
-				try {
-					batch();
-				}catch (Exception e){
-					e.printStackTrace();
-				}
-			}
-		});
-	}
-	
 	@SuppressWarnings("rawtypes")
 	private void filterTryToCreate(Class clz){
 		String sql = MapperFactory.tryToCreate(clz);
@@ -664,7 +466,7 @@ public class AsyncDaoImpl implements HeartBeat, AsyncDao {
 		Connection conn = null;
 		PreparedStatement pstmt = null;
 		try {
-			conn = getConnection();
+			conn = dataSource.getConnection();
 			conn.setAutoCommit(true);
 			pstmt = conn.prepareStatement(sql);
 
@@ -679,7 +481,13 @@ public class AsyncDaoImpl implements HeartBeat, AsyncDao {
 			} catch (SQLException e) {
 				e.printStackTrace();
 			}
-			close(conn);
+			if (conn != null) {
+				try {
+					conn.close();
+				} catch (SQLException e) {
+					e.printStackTrace();
+				}
+			}
 		}
 
 	}
@@ -38,7 +38,24 @@ public interface Dao {
 
 	boolean createOrReplace(Object obj);
 
-	boolean createBatch(List<? extends Object> objList);
+	/**
+	 * @return per row, the count updated, or Statement.SUCCESS_NO_INFO
+	 */
+	int[] createBatch(List<? extends Object> objList);
+
+	int[] createOrReplaceBatch(List<? extends Object> objList);
+
+	/**
+	 * refresh by keyOne, the properties not null
+	 */
+	int[] refreshBatch(List<? extends Object> objList);
+
+	/**
+	 * refresh by keyOne, every property of the row, null and 0 included, by Mapper.REFRESH
+	 */
+	int[] refreshFullBatch(List<? extends Object> objList);
+
+	<T> int[] removeBatch(Class<T> clz, List<? extends Object> keyOneList);
 
 	<T> boolean remove(KeyOne<T> keyOne);
 
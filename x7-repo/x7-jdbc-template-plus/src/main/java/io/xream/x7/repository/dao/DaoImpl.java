@@ -21,14 +21,18 @@ import io.xream.x7.common.bean.condition.InCondition;
 import io.xream.x7.common.bean.condition.RefreshCondition;
 import io.xream.x7.common.repository.X;
 import io.xream.x7.common.util.BeanMapUtil;
+import io.xream.x7.common.util.ExceptionUtil;
 import io.xream.x7.common.util.LoggerProxy;
 import io.xream.x7.common.util.StringUtil;
 import io.xream.x7.common.web.Page;
 import io.xream.x7.repository.CriteriaParser;
 import io.xream.x7.repository.KeyOne;
 import io.xream.x7.repository.SqlParsed;
+import io.xream.x7.repository.exception.PersistenceException;
 import io.xream.x7.repository.mapper.DataObjectConverter;
 import io.xream.x7.repository.mapper.Dialect;
+import io.xream.x7.repository.mapper.EntityBinder;
+import io.xream.x7.repository.mapper.EntityRowMapper;
 import io.xream.x7.repository.mapper.Mapper;
 import io.xream.x7.repository.mapper.MapperFactory;
 import io.xream.x7.repository.util.ResultSortUtil;
@@ -36,16 +40,26 @@ import io.xream.x7.repository.util.SqlParserUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.ColumnMapRowMapper;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.JdbcUtils;
 import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.Statement;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * @author Sim
@@ -61,34 +75,308 @@ public class DaoImpl implements Dao {
 
     private Logger logger = LoggerFactory.getLogger(DaoImpl.class);
 
+    /**
+     * the placeholders limit of one statement
+     */
+    private final static int MAX_PARAMETERS = 65535;
+
+    private int batchSize = 500;
+    private int batchMaxBytes = 1024 * 1024;
+    private volatile Boolean isBatchRewritten;
+
+    private int batchParallelism = 1;
+    private ExecutorService batchExecutor;
+    private TransactionTemplate chunkTransactionTemplate;
+
+    /**
+     * the max estimated bytes of one multi-row insert, under max_allowed_packet of the db
+     */
+    public void setBatchMaxBytes(int batchMaxBytes) {
+        if (batchMaxBytes > 0) {
+            this.batchMaxBytes = batchMaxBytes;
+        }
+    }
+
+    public void setBatchSize(int batchSize) {
+        if (batchSize > 0) {
+            this.batchSize = batchSize;
+        }
+    }
+
+    /**
+     * 1: off <br>
+     * n: a batch larger than batchSize split into n chunks at most, <br>
+     * written concurrently on n connections, one transaction per chunk, <br>
+     * not if called in a transaction
+     */
+    public void setBatchParallelism(int batchParallelism) {
+        if (batchParallelism > 0) {
+            this.batchParallelism = batchParallelism;
+        }
+    }
+
+    @Override
+    public int[] createBatch(List<? extends Object> objList) {
+        return createBatchOf(objList, false);
+    }
+
     @Override
-    public boolean createBatch(List<? extends Object> objList) {
+    public int[] createOrReplaceBatch(List<? extends Object> objList) {
+        return createBatchOf(objList, true);
+    }
+
+    private int[] createBatchOf(List<? extends Object> objList, boolean isReplace) {
+        if (this.batchParallelism > 1 && objList.size() > this.batchSize
+                && !TransactionSynchronizationManager.isActualTransactionActive())
+            return createBatchParallel(objList, isReplace);
+        return createBatch(objList, isReplace);
+    }
+
+    /**
+     * each chunk committed or rolled back by itself, in the order of the list inside the chunk, <br>
+     * no order between chunks; if any chunk failed, PersistenceException thrown after all chunks done, <br>
+     * the chunks committed not rolled back
+     */
+    private int[] createBatchParallel(List<? extends Object> objList, boolean isReplace) {
+
+        final int size = objList.size();
+        final int chunkSize = Math.max(this.batchSize, (size + this.batchParallelism - 1) / this.batchParallelism);
+        final int[] result = new int[size];
+        final TransactionTemplate tt = getChunkTransactionTemplate();
+
+        List<Future<?>> futureList = new ArrayList<>();
+        for (int from = 0; from < size; from += chunkSize) {
+            final int start = from;
+            final List<? extends Object> chunk = objList.subList(from, Math.min(from + chunkSize, size));
+            futureList.add(getBatchExecutor().submit(() -> {
+                int[] counts = tt.execute(status -> createBatch(chunk, isReplace));
+                System.arraycopy(counts, 0, result, start, counts.length);
+            }));
+        }
+
+        Throwable failure = null;
+        int failed = 0;
+        for (int i = 0; i < futureList.size(); i++) {
+            try {
+                futureList.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new PersistenceException("createBatch interrupted, " + ExceptionUtil.getMessage(e));
+            } catch (ExecutionException e) {
+                failed++;
+                int from = i * chunkSize;
+                Arrays.fill(result, from, Math.min(from + chunkSize, size), Statement.EXECUTE_FAILED);
+                if (failure == null) {
+                    failure = e.getCause();
+                }
+            }
+        }
+        if (failure != null)
+            throw new PersistenceException(failed + " of " + futureList.size() + " chunks rolled back, the others committed, "
+                    + ExceptionUtil.getMessage(failure));
+
+        return result;
+    }
+
+    private synchronized ExecutorService getBatchExecutor() {
+        if (this.batchExecutor == null) {
+            this.batchExecutor = Executors.newFixedThreadPool(this.batchParallelism, r -> {
+                Thread t = new Thread(r, "x7-batch-writer");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return this.batchExecutor;
+    }
+
+    private synchronized TransactionTemplate getChunkTransactionTemplate() {
+        if (this.chunkTransactionTemplate == null) {
+            this.chunkTransactionTemplate = new TransactionTemplate(
+                    new DataSourceTransactionManager(this.jdbcTemplate.getDataSource()));
+        }
+        return this.chunkTransactionTemplate;
+    }
+
+    /**
+     * multi-row insert by Dialect, if the driver not rewriting the batch, <br>
+     * and the size of the rows estimable, or else jdbc batch
+     */
+    private int[] createBatch(List<? extends Object> objList, boolean isReplace) {
 
         if (objList.isEmpty())
-            return false;
+            return new int[0];
         Object obj = objList.get(0);
         Class clz = obj.getClass();
-        String sql = MapperFactory.getSql(clz, Mapper.CREATE);
-
-        LoggerProxy.debug(clz, sql);
+        String createSql = MapperFactory.getSql(clz, Mapper.CREATE);
 
         Parsed parsed = Parser.get(clz);
-        final int batchSize = 500;
+        EntityBinder binder = EntityBinder.get(clz);
         try {
 
-            this.jdbcTemplate.batchUpdate(sql, objList, batchSize, (pstmt, o) -> {
-                List<Object> valueList = DataObjectConverter.objectToListForCreate(o, parsed.getBeanElementList(), dialect);
-                int i = 1;
-                for (Object value : valueList) {
-                    pstmt.setObject(i++, value);
+            if (!isBatchRewritten() && binder.isEstimable()) {
+                int columns = parsed.getBeanElementList().size();
+                int rows = Math.max(1, Math.min(this.batchSize, MAX_PARAMETERS / columns));
+                if (rows > 1 && this.dialect.createBatchSql(createSql, 1) != null)
+                    return createMultiRow(clz, createSql, isReplace, objList, rows, columns, binder);
+            }
+
+            String sql = isReplace ? this.dialect.createOrReplaceSql(createSql) : createSql;
+            LoggerProxy.debug(clz, sql);
+
+            int[][] counts = this.jdbcTemplate.batchUpdate(sql, objList, this.batchSize, (pstmt, o) -> binder.bind(pstmt, o, dialect));
+            return flatten(counts, objList.size());
+
+        } catch (Exception e) {
+            throw DaoExceptionTranslator.onRollback(obj, e, logger);
+        }
+    }
+
+    /**
+     * the rows of one statement capped by rowsPerStatement, and by batchMaxBytes estimated, <br>
+     * a row over batchMaxBytes inserted alone
+     */
+    private int[] createMultiRow(Class clz, String createSql, boolean isReplace, List<? extends Object> objList,
+                                 int rowsPerStatement, int columns, EntityBinder binder) {
+
+        final int size = objList.size();
+        final int[] result = new int[size];
+
+        this.jdbcTemplate.execute((ConnectionCallback<Object>) connection -> {
+            PreparedStatement pstmt = null;
+            int preparedRows = 0;
+            try {
+                int from = 0;
+                while (from < size) {
+                    int rows = 0;
+                    long bytes = createSql.length();
+                    while (rows < rowsPerStatement && from + rows < size) {
+                        bytes += binder.estimate(objList.get(from + rows));
+                        if (rows > 0 && bytes > this.batchMaxBytes)
+                            break;
+                        rows++;
+                    }
+                    if (rows != preparedRows) {
+                        JdbcUtils.closeStatement(pstmt);
+                        String sql = this.dialect.createBatchSql(createSql, rows);
+                        if (isReplace) {
+                            sql = this.dialect.createOrReplaceSql(sql);
+                        }
+                        LoggerProxy.debug(clz, sql);
+                        pstmt = connection.prepareStatement(sql);
+                        preparedRows = rows;
+                    }
+                    for (int r = 0; r < rows; r++) {
+                        binder.bind(pstmt, r * columns, objList.get(from + r), this.dialect);
+                    }
+                    int count = pstmt.executeUpdate();
+                    Arrays.fill(result, from, from + rows, count == rows ? 1 : Statement.SUCCESS_NO_INFO);
+                    from += rows;
                 }
-            });
+            } finally {
+                JdbcUtils.closeStatement(pstmt);
+            }
+            return null;
+        });
+
+        return result;
+    }
+
+    private boolean isBatchRewritten() {
+        if (this.isBatchRewritten == null) {
+            String url = this.jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getURL());
+            this.isBatchRewritten = url != null && url.toLowerCase().contains("rewritebatchedstatements=true");
+        }
+        return this.isBatchRewritten;
+    }
+
+    @Override
+    public int[] refreshBatch(List<? extends Object> objList) {
+
+        if (objList.isEmpty())
+            return new int[0];
+        Object obj = objList.get(0);
+        Class clz = obj.getClass();
 
+        Map<String, List<Integer>> indexMap = new LinkedHashMap<>();
+        Map<String, List<Object[]>> argsMap = new LinkedHashMap<>();
+        for (int i = 0, size = objList.size(); i < size; i++) {
+            Object[] arr = SqlUtil.refresh(objList.get(i), clz);
+            String sql = (String) arr[0];
+            Object[] args = this.dialect.toArr((Collection<Object>) arr[1]);
+            indexMap.computeIfAbsent(sql, k -> new ArrayList<>()).add(i);
+            argsMap.computeIfAbsent(sql, k -> new ArrayList<>()).add(args);
+        }
+
+        int[] result = new int[objList.size()];
+        try {
+            for (Map.Entry<String, List<Object[]>> entry : argsMap.entrySet()) {
+                String sql = entry.getKey();
+                LoggerProxy.debug(clz, sql);
+                int[][] counts = this.jdbcTemplate.batchUpdate(sql, entry.getValue(), this.batchSize, (pstmt, args) -> {
+                    for (int j = 0; j < args.length; j++) {
+                        pstmt.setObject(j + 1, args[j]);
+                    }
+                });
+                int[] flat = flatten(counts, entry.getValue().size());
+                List<Integer> indexList = indexMap.get(sql);
+                for (int j = 0; j < flat.length; j++) {
+                    result[indexList.get(j)] = flat[j];
+                }
+            }
         } catch (Exception e) {
             throw DaoExceptionTranslator.onRollback(obj, e, logger);
         }
+        return result;
+    }
 
-        return true;
+    @Override
+    public int[] refreshFullBatch(List<? extends Object> objList) {
+
+        if (objList.isEmpty())
+            return new int[0];
+        Object obj = objList.get(0);
+        Class clz = obj.getClass();
+        String sql = MapperFactory.getSql(clz, Mapper.REFRESH);
+        EntityBinder binder = EntityBinder.get(clz);
+
+        LoggerProxy.debug(clz, sql);
+
+        try {
+            int[][] counts = this.jdbcTemplate.batchUpdate(sql, objList, this.batchSize, (pstmt, o) -> binder.bindRefresh(pstmt, o, dialect));
+            return flatten(counts, objList.size());
+        } catch (Exception e) {
+            throw DaoExceptionTranslator.onRollback(obj, e, logger);
+        }
+    }
+
+    @Override
+    public <T> int[] removeBatch(Class<T> clz, List<? extends Object> keyOneList) {
+
+        if (keyOneList.isEmpty())
+            return new int[0];
+        String sql = MapperFactory.getSql(clz, Mapper.REMOVE);
+
+        LoggerProxy.debug(clz, keyOneList);
+        LoggerProxy.debug(clz, sql);
+
+        try {
+            int[][] counts = this.jdbcTemplate.batchUpdate(sql, keyOneList, this.batchSize,
+                    (pstmt, keyOne) -> pstmt.setObject(1, keyOne));
+            return flatten(counts, keyOneList.size());
+        } catch (Exception e) {
+            throw DaoExceptionTranslator.onRollback(null, e, logger);
+        }
+    }
+
+    private static int[] flatten(int[][] counts, int size) {
+        int[] result = new int[size];
+        int i = 0;
+        for (int[] arr : counts) {
+            for (int count : arr) {
+                result[i++] = count;
+            }
+        }
+        return result;
     }
 
     @Override
@@ -116,9 +404,9 @@ public class DaoImpl implements Dao {
             Long keyOneValue = parsed.tryToGetLongKey(obj);
             boolean isAutoIncreaseId = parsed.isAutoIncreaseId(keyOneValue);
 
-            List<Object> valueList = DataObjectConverter.objectToListForCreate(obj, parsed.getBeanElementList(), dialect);
+            EntityBinder binder = EntityBinder.get(clz);
 
-            LoggerProxy.debug(clz, valueList);
+            LoggerProxy.debug(clz, () -> String.valueOf(DataObjectConverter.objectToListForCreate(obj, parsed.getBeanElementList(), dialect)));
             LoggerProxy.debug(clz, sql);
 
             KeyHolder keyHolder = new GeneratedKeyHolder();
@@ -126,20 +414,14 @@ public class DaoImpl implements Dao {
 
                 this.jdbcTemplate.update(connection -> {
                     PreparedStatement pstmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
-                    int i = 1;
-                    for (Object value : valueList) {
-                        pstmt.setObject(i++, value);
-                    }
+                    binder.bind(pstmt, obj, dialect);
                     return pstmt;
                 }, keyHolder);
 
             } else {
                 this.jdbcTemplate.update(connection -> {
                     PreparedStatement pstmt = connection.prepareStatement(sql);
-                    int i = 1;
-                    for (Object value : valueList) {
-                        pstmt.setObject(i++, value);
-                    }
+                    binder.bind(pstmt, obj, dialect);
                     return pstmt;
                 });
             }
@@ -166,17 +448,14 @@ public class DaoImpl implements Dao {
             final String sql = this.dialect.createOrReplaceSql(createSql);
 
             Parsed parsed = Parser.get(clz);
-            List<Object> valueList = DataObjectConverter.objectToListForCreate(obj, parsed.getBeanElementList(), dialect);
+            EntityBinder binder = EntityBinder.get(clz);
 
-            LoggerProxy.debug(clz, valueList);
+            LoggerProxy.debug(clz, () -> String.valueOf(DataObjectConverter.objectToListForCreate(obj, parsed.getBeanElementList(), dialect)));
             LoggerProxy.debug(clz, sql);
 
             this.jdbcTemplate.update(connection -> {
                 PreparedStatement pstmt = connection.prepareStatement(sql);
-                int i = 1;
-                for (Object value : valueList) {
-                    pstmt.setObject(i++, value);
-                }
+                binder.bind(pstmt, obj, dialect);
                 return pstmt;
             });
 
@@ -442,8 +721,8 @@ public class DaoImpl implements Dao {
 
     private <T> void queryForMapToHandle(Class clzz, String sql, Collection<Object> valueList, Dialect dialect, JdbcTemplate jdbcTemplate, Criteria.ResultMappedCriteria resultMappedCriteria, RowHandler<T> handler) {
 
-        Parsed parsed = Parser.get(clzz);
         RowMapper<Map<String, Object>> rowMapper = new ColumnMapRowMapper();
+        RowMapper<T> entityRowMapper = resultMappedCriteria == null ? new EntityRowMapper<>(clzz, dialect) : null;
 
         jdbcTemplate.query(connection -> {
             PreparedStatement preparedStatement =
@@ -463,19 +742,16 @@ public class DaoImpl implements Dao {
             return preparedStatement;
         }, resultSet -> {
 
-            Map<String, Object> dataMap = rowMapper.mapRow(resultSet, 0);
-
-            Map<String, Object> objectMap = DataObjectConverter.dataToPropertyObjectMap(clzz, dataMap, resultMappedCriteria, dialect);
-
             T t = null;
             if (resultMappedCriteria == null) {
                 try {
-                    t = (T) clzz.newInstance();
-                    DataObjectConverter.initObj(t, objectMap, parsed.getBeanElementList());
+                    t = entityRowMapper.mapRow(resultSet, 0);
                 } catch (Exception e) {
                     throw DaoExceptionTranslator.onQuery(e, logger);
                 }
             } else {
+                Map<String, Object> dataMap = rowMapper.mapRow(resultSet, 0);
+                Map<String, Object> objectMap = DataObjectConverter.dataToPropertyObjectMap(clzz, dataMap, resultMappedCriteria, dialect);
                 objectMap = BeanMapUtil.toJsonableMap(objectMap);
                 t = (T) objectMap;
             }
@@ -510,20 +786,19 @@ public class DaoImpl implements Dao {
     }
 
     private <T> List<T> queryForList(String sql, Class<T> clz, Collection<Object> list, Dialect dialect, JdbcTemplate jdbcTemplate) {
-        List<Map<String, Object>> dataMapList = this.queryForMapList(sql, list, dialect, jdbcTemplate);
-        List<Map<String, Object>> propertyMapList = DataObjectConverter.dataToPropertyObjectMapList(clz, dataMapList, null, dialect);
-        List<T> tList = new ArrayList<>();
-        Parsed parsed = Parser.get(clz);
+        RowMapper<T> rowMapper = new EntityRowMapper<>(clz, dialect);
         try {
-            for (Map<String, Object> map : propertyMapList) {
-                T t = clz.newInstance();
-                DataObjectConverter.initObj(t, map, parsed.getBeanElementList());
-                tList.add(t);
+            if (list == null || list.isEmpty()) {
+                return jdbcTemplate.query(sql, rowMapper);
+            } else {
+                Object[] arr = dialect.toArr(list);
+                return jdbcTemplate.query(sql, arr, rowMapper);
             }
+        } catch (DataAccessException e) {
+            throw e;
         } catch (Exception e) {
             throw DaoExceptionTranslator.onQuery(e, logger);
         }
-        return tList;
     }
 
 
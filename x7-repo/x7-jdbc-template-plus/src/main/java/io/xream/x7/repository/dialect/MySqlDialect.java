@@ -108,6 +108,18 @@ public class MySqlDialect implements Dialect {
         return sql.replaceFirst("INSERT","REPLACE");
     }
 
+    @Override
+    public String createBatchSql(String sql, int rows) {
+        int i = sql.lastIndexOf("VALUES");
+        String values = sql.substring(i + "VALUES".length()).trim();
+        StringBuilder sb = new StringBuilder(sql.length() + (values.length() + 1) * rows);
+        sb.append(sql, 0, i).append("VALUES ").append(values);
+        for (int r = 1; r < rows; r++) {
+            sb.append(",").append(values);
+        }
+        return sb.toString();
+    }
+
     @Override
     public String transformAlia(String mapper,Map<String, String> aliaMap,  Map<String, String> resultKeyAliaMap) {
 
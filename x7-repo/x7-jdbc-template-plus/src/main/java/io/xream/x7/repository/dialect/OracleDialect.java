@@ -176,6 +176,14 @@ public class OracleDialect implements Dialect {
 
     }
 
+    /**
+     * the driver sends the batch in one round trip
+     */
+    @Override
+    public String createBatchSql(String sql, int rows) {
+        return null;
+    }
+
     @Override
     public String createOrReplaceSql(String sql) {
         throw new NotSupportedException("x7/x7-repor/x7-jdbc-template-plus not support createOrReplace() for Oracle");
@@ -107,8 +107,6 @@ public abstract class DefaultRepository<T> implements BaseRepository<T> {
         if (id == 0)
             throw new PersistenceException("UNEXPECTED EXCEPTION WHILE CREATING ID");
 
-        GlobalIdPersistencePolicy.persist(id, clzName);
-
         return id;
     }
 
@@ -117,6 +115,26 @@ public abstract class DefaultRepository<T> implements BaseRepository<T> {
         return repository.createBatch(objList);
     }
 
+    @Override
+    public int[] createBatchCounts(List<T> objList) {
+        return repository.createBatchCounts(objList);
+    }
+
+    @Override
+    public int[] createOrReplaceBatch(List<T> objList) {
+        return repository.createOrReplaceBatch(objList);
+    }
+
+    @Override
+    public int[] refreshBatch(List<T> objList) {
+        return repository.refreshBatch(objList);
+    }
+
+    @Override
+    public int[] removeBatch(List<? extends Object> keyOneList) {
+        return repository.removeBatch(this.clz, keyOneList);
+    }
+
     @Override
     public long create(T obj) {
         return repository.create(obj);
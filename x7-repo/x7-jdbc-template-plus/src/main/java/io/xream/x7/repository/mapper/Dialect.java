@@ -52,4 +52,10 @@ public interface Dialect {
     Object mappingToObject( Object obj, BeanElement element);
 
     String createOrReplaceSql(String sql);
+
+    /**
+     * one statement to insert rows, from the create sql of one row <br>
+     * null, if the driver batches natively
+     */
+    String createBatchSql(String sql, int rows);
 }
\ No newline at end of file
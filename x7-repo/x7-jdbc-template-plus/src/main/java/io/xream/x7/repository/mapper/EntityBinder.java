@@ -0,0 +1,323 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.xream.x7.repository.mapper;
+
+import io.xream.x7.common.bean.BeanElement;
+import io.xream.x7.common.bean.Parsed;
+import io.xream.x7.common.bean.Parser;
+import io.xream.x7.common.repository.X;
+import io.xream.x7.common.util.BeanUtil;
+import io.xream.x7.common.util.ExceptionUtil;
+import io.xream.x7.common.util.JsonX;
+import io.xream.x7.repository.exception.PersistenceException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * binds the values of create sql, without list per row, <br>
+ * the property read by MethodHandle, set by the typed setter of PreparedStatement, <br>
+ * compiled once per entity from Parsed, in the order of Parsed.getBeanElementList()
+ *
+ * @author Sim
+ */
+public final class EntityBinder {
+
+    private final static Map<Class, EntityBinder> BINDER_MAP = new ConcurrentHashMap<>();
+
+    /**
+     * the estimated bytes of a column not String in sql text
+     */
+    private final static int FIXED_BYTES = 32;
+
+    private final Binding[] bindings;
+    private final Binding[] refreshBindings;
+    private final MethodHandle[] stringGetters;
+    private final boolean hasJson;
+
+    public static EntityBinder get(Class clz) {
+        return BINDER_MAP.computeIfAbsent(clz, EntityBinder::new);
+    }
+
+    private EntityBinder(Class clz) {
+        Parsed parsed = Parser.get(clz);
+        List<BeanElement> eles = parsed.getBeanElementList();
+        String keyOne = parsed.getKey(X.KEY_ONE);
+        this.bindings = new Binding[eles.size()];
+        List<Binding> refreshBindingList = new ArrayList<>();
+        Binding keyBinding = null;
+        List<MethodHandle> stringGetterList = new ArrayList<>();
+        boolean hasJson = false;
+        try {
+            for (int i = 0; i < this.bindings.length; i++) {
+                BeanElement ele = eles.get(i);
+                this.bindings[i] = bindingOf(clz, ele);
+                if (ele.property.equals(keyOne)) {
+                    keyBinding = refreshBindingOf(ele);
+                } else {
+                    refreshBindingList.add(refreshBindingOf(ele));
+                }
+                if (ele.isJson) {
+                    hasJson = true;
+                } else if (ele.clz == String.class) {
+                    stringGetterList.add(MethodHandles.lookup().unreflect(ele.getMethod)
+                            .asType(MethodType.methodType(Object.class, Object.class)));
+                }
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(ExceptionUtil.getMessage(e));
+        }
+        this.stringGetters = stringGetterList.toArray(new MethodHandle[0]);
+        this.hasJson = hasJson;
+        if (keyBinding == null) {
+            this.refreshBindings = null;
+        } else {
+            refreshBindingList.add(keyBinding);
+            this.refreshBindings = refreshBindingList.toArray(new Binding[0]);
+        }
+    }
+
+    /**
+     * json columns: the size known only after toJson, not estimable
+     */
+    public boolean isEstimable() {
+        return !this.hasJson;
+    }
+
+    /**
+     * the upper bound of the bytes of the row in sql text, <br>
+     * String by 3 bytes per char
+     */
+    public long estimate(Object obj) {
+        long bytes = (long) (this.bindings.length - this.stringGetters.length) * FIXED_BYTES;
+        try {
+            for (MethodHandle getter : this.stringGetters) {
+                Object value = getter.invokeExact(obj);
+                bytes += value == null ? 4 : ((String) value).length() * 3L + 2;
+            }
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException(ExceptionUtil.getMessage(e));
+        }
+        return bytes;
+    }
+
+    /**
+     * the same values as DataObjectConverter.objectToListForCreate
+     */
+    public void bind(PreparedStatement pstmt, Object obj, Dialect dialect) throws SQLException {
+        bind(pstmt, 0, obj, dialect);
+    }
+
+    /**
+     * @param offset the count of parameters before the row, for multi-row insert
+     */
+    public void bind(PreparedStatement pstmt, int offset, Object obj, Dialect dialect) throws SQLException {
+        try {
+            for (int i = 0; i < this.bindings.length; i++) {
+                this.bindings[i].bind(pstmt, offset + i + 1, obj, dialect);
+            }
+        } catch (SQLException | RuntimeException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException(ExceptionUtil.getMessage(e));
+        }
+    }
+
+    /**
+     * the values of Mapper.REFRESH: the properties except keyOne, then keyOne, <br>
+     * null bound as null, not as 0 like create
+     */
+    public void bindRefresh(PreparedStatement pstmt, Object obj, Dialect dialect) throws SQLException {
+        if (this.refreshBindings == null)
+            throw new PersistenceException("No PrimaryKey, can not refresh: " + obj.getClass().getName());
+        try {
+            for (int i = 0; i < this.refreshBindings.length; i++) {
+                this.refreshBindings[i].bind(pstmt, i + 1, obj, dialect);
+            }
+        } catch (SQLException | RuntimeException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException(ExceptionUtil.getMessage(e));
+        }
+    }
+
+    private interface Binding {
+        void bind(PreparedStatement pstmt, int index, Object obj, Dialect dialect) throws Throwable;
+    }
+
+    private static Binding refreshBindingOf(BeanElement ele) throws IllegalAccessException {
+
+        final MethodHandle mh = MethodHandles.lookup().unreflect(ele.getMethod)
+                .asType(MethodType.methodType(Object.class, Object.class));
+        final Class ec = ele.clz;
+
+        if (ele.isJson) {
+            return (ps, i, obj, d) -> {
+                Object value = mh.invokeExact(obj);
+                ps.setObject(i, value == null ? null : JsonX.toJson(value));
+            };
+        }
+        if (BeanUtil.isEnum(ec)) {
+            return (ps, i, obj, d) -> {
+                Object value = mh.invokeExact(obj);
+                ps.setObject(i, value == null ? null : ((Enum) value).name());
+            };
+        }
+        if (ec == String.class) {
+            return (ps, i, obj, d) -> {
+                Object value = mh.invokeExact(obj);
+                ps.setObject(i, value == null ? null : d.filterValue(value));
+            };
+        }
+        if (ec == Date.class) {
+            return (ps, i, obj, d) -> {
+                Object value = mh.invokeExact(obj);
+                ps.setTimestamp(i, value == null ? null : new Timestamp(((Date) value).getTime()));
+            };
+        }
+        return (ps, i, obj, d) -> {
+            Object value = mh.invokeExact(obj);
+            ps.setObject(i, value);
+        };
+    }
+
+    private static Binding bindingOf(Class clz, BeanElement ele) throws IllegalAccessException {
+
+        ele.getMethod.setAccessible(true);
+        final MethodHandle getter = MethodHandles.lookup().unreflect(ele.getMethod);
+        final Class ec = ele.clz;
+
+        if (ec == long.class) {
+            final MethodHandle mh = getter.asType(MethodType.methodType(long.class, Object.class));
+            return (ps, i, obj, d) -> ps.setLong(i, (long) mh.invokeExact(obj));
+        }
+        if (ec == int.class) {
+            final MethodHandle mh = getter.asType(MethodType.methodType(int.class, Object.class));
+            return (ps, i, obj, d) -> ps.setInt(i, (int) mh.invokeExact(obj));
+        }
+        if (ec == double.class) {
+            final MethodHandle mh = getter.asType(MethodType.methodType(double.class, Object.class));
+            return (ps, i, obj, d) -> ps.setDouble(i, (double) mh.invokeExact(obj));
+        }
+        if (ec == float.class) {
+            final MethodHandle mh = getter.asType(MethodType.methodType(float.class, Object.class));
+            return (ps, i, obj, d) -> ps.setFloat(i, (float) mh.invokeExact(obj));
+        }
+        if (ec == boolean.class) {
+            final MethodHandle mh = getter.asType(MethodType.methodType(boolean.class, Object.class));
+            return (ps, i, obj, d) -> ps.setBoolean(i, (boolean) mh.invokeExact(obj));
+        }
+
+        final MethodHandle mh = getter.asType(MethodType.methodType(Object.class, Object.class));
+
+        if (BeanUtil.isEnum(ec)) {
+            final String property = clz.getName() + "." + ele.getProperty();
+            return (ps, i, obj, d) -> {
+                Object value = mh.invokeExact(obj);
+                if (value == null)
+                    throw new PersistenceException("ENUM CAN NOT NULL, property:" + property);
+                ps.setString(i, ((Enum) value).name());
+            };
+        }
+        if (ele.isJson) {
+            return (ps, i, obj, d) -> {
+                Object value = mh.invokeExact(obj);
+                ps.setObject(i, value == null ? null : JsonX.toJson(value));
+            };
+        }
+        if (ec == Long.class) {
+            return (ps, i, obj, d) -> {
+                Object value = mh.invokeExact(obj);
+                ps.setLong(i, value == null ? 0 : (Long) value);
+            };
+        }
+        if (ec == Integer.class) {
+            return (ps, i, obj, d) -> {
+                Object value = mh.invokeExact(obj);
+                ps.setInt(i, value == null ? 0 : (Integer) value);
+            };
+        }
+        if (ec == Double.class) {
+            return (ps, i, obj, d) -> {
+                Object value = mh.invokeExact(obj);
+                ps.setDouble(i, value == null ? 0 : (Double) value);
+            };
+        }
+        if (ec == Float.class) {
+            return (ps, i, obj, d) -> {
+                Object value = mh.invokeExact(obj);
+                ps.setFloat(i, value == null ? 0 : (Float) value);
+            };
+        }
+        if (ec == Boolean.class) {
+            return (ps, i, obj, d) -> {
+                Object value = mh.invokeExact(obj);
+                if (value == null) {
+                    ps.setInt(i, 0);
+                } else {
+                    ps.setBoolean(i, (Boolean) value);
+                }
+            };
+        }
+        if (ec == BigDecimal.class) {
+            return (ps, i, obj, d) -> {
+                Object value = mh.invokeExact(obj);
+                ps.setBigDecimal(i, value == null ? BigDecimal.ZERO : (BigDecimal) value);
+            };
+        }
+        if (ec == Byte.class || ec == Short.class) {
+            return (ps, i, obj, d) -> {
+                Object value = mh.invokeExact(obj);
+                ps.setObject(i, value == null ? 0 : value);
+            };
+        }
+        if (ec == String.class) {
+            return (ps, i, obj, d) -> {
+                Object value = mh.invokeExact(obj);
+                ps.setString(i, value == null ? null : (String) d.filterValue(value));
+            };
+        }
+        if (ec == Timestamp.class) {
+            return (ps, i, obj, d) -> {
+                Object value = mh.invokeExact(obj);
+                ps.setTimestamp(i, (Timestamp) value);
+            };
+        }
+        if (ec == Date.class) {
+            return (ps, i, obj, d) -> {
+                Object value = mh.invokeExact(obj);
+                ps.setTimestamp(i, value == null ? null : new Timestamp(((Date) value).getTime()));
+            };
+        }
+        return (ps, i, obj, d) -> {
+            Object value = mh.invokeExact(obj);
+            ps.setObject(i, value == null ? null : d.filterValue(value));
+        };
+    }
+}
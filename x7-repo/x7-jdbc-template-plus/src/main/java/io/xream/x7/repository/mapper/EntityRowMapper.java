@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.xream.x7.repository.mapper;
+
+import io.xream.x7.common.bean.BeanElement;
+import io.xream.x7.common.bean.Parsed;
+import io.xream.x7.common.bean.Parser;
+import io.xream.x7.common.util.BeanUtil;
+import io.xream.x7.common.util.ExceptionUtil;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * row to entity without map per row, <br>
+ * the column read by the typed getter of ResultSet, set by MethodHandle, <br>
+ * compiled once per entity from Parsed, the columns bound once per query
+ *
+ * @author Sim
+ */
+public final class EntityRowMapper<T> implements RowMapper<T> {
+
+    private final static Map<Class, Compiled> COMPILED_MAP = new ConcurrentHashMap<>();
+
+    private final Compiled compiled;
+    private final Dialect dialect;
+    private Property[] columns;
+
+    public EntityRowMapper(Class<T> clz, Dialect dialect) {
+        this.compiled = COMPILED_MAP.computeIfAbsent(clz, Compiled::new);
+        this.dialect = dialect;
+    }
+
+    @Override
+    public T mapRow(ResultSet rs, int rowNum) throws SQLException {
+        if (this.columns == null) {
+            this.columns = this.compiled.bind(rs.getMetaData());
+        }
+        try {
+            Object obj = this.compiled.constructor.invokeExact();
+            T t = (T) obj;
+            for (int i = 0; i < this.columns.length; i++) {
+                Property property = this.columns[i];
+                if (property == null)
+                    continue;
+                Object value = property.reader.read(rs, i + 1, property.element, this.dialect);
+                if (value != null) {
+                    property.setter.invokeExact(obj, value);
+                }
+            }
+            return t;
+        } catch (SQLException | RuntimeException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException(ExceptionUtil.getMessage(e));
+        }
+    }
+
+    private static class Compiled {
+
+        private final Parsed parsed;
+        private final MethodHandle constructor;
+        private final Map<String, Property> propertyMap = new HashMap<>();
+
+        private Compiled(Class clz) {
+            this.parsed = Parser.get(clz);
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            try {
+                this.constructor = lookup.findConstructor(clz, MethodType.methodType(void.class))
+                        .asType(MethodType.methodType(Object.class));
+                for (BeanElement be : this.parsed.getBeanElementList()) {
+                    if (be.setMethod == null)
+                        continue;
+                    be.setMethod.setAccessible(true);
+                    MethodHandle setter = lookup.unreflect(be.setMethod)
+                            .asType(MethodType.methodType(void.class, Object.class, Object.class));
+                    this.propertyMap.put(be.getProperty(), new Property(be, readerOf(be), setter));
+                }
+            } catch (Exception e) {
+                throw new RuntimeException(ExceptionUtil.getMessage(e));
+            }
+        }
+
+        private Property[] bind(ResultSetMetaData metaData) throws SQLException {
+            int count = metaData.getColumnCount();
+            Property[] columns = new Property[count];
+            for (int i = 0; i < count; i++) {
+                String property = this.parsed.getPropertyByLower(metaData.getColumnLabel(i + 1));
+                if (property != null) {
+                    columns[i] = this.propertyMap.get(property);
+                }
+            }
+            return columns;
+        }
+    }
+
+    private static class Property {
+        private final BeanElement element;
+        private final Reader reader;
+        private final MethodHandle setter;
+
+        private Property(BeanElement element, Reader reader, MethodHandle setter) {
+            this.element = element;
+            this.reader = reader;
+            this.setter = setter;
+        }
+    }
+
+    private interface Reader {
+        Object read(ResultSet rs, int index, BeanElement be, Dialect dialect) throws SQLException;
+    }
+
+    /**
+     * typed getter for the plain types, <br>
+     * json, enum and others by getObject and Dialect.mappingToObject
+     */
+    private static Reader readerOf(BeanElement be) {
+        Class ec = be.clz;
+        if (be.isJson || BeanUtil.isEnum(ec))
+            return EntityRowMapper::readObject;
+        if (ec == String.class)
+            return (rs, i, e, d) -> filter(rs.getString(i));
+        if (ec == long.class || ec == Long.class)
+            return (rs, i, e, d) -> nullIfWasNull(rs, rs.getLong(i));
+        if (ec == int.class || ec == Integer.class)
+            return (rs, i, e, d) -> nullIfWasNull(rs, rs.getInt(i));
+        if (ec == double.class || ec == Double.class)
+            return (rs, i, e, d) -> nullIfWasNull(rs, rs.getDouble(i));
+        if (ec == float.class || ec == Float.class)
+            return (rs, i, e, d) -> nullIfWasNull(rs, rs.getFloat(i));
+        if (ec == boolean.class || ec == Boolean.class)
+            return (rs, i, e, d) -> nullIfWasNull(rs, rs.getBoolean(i));
+        if (ec == short.class || ec == Short.class)
+            return (rs, i, e, d) -> nullIfWasNull(rs, rs.getShort(i));
+        if (ec == byte.class || ec == Byte.class)
+            return (rs, i, e, d) -> nullIfWasNull(rs, rs.getByte(i));
+        if (ec == BigDecimal.class)
+            return (rs, i, e, d) -> rs.getBigDecimal(i);
+        if (ec == Timestamp.class)
+            return (rs, i, e, d) -> rs.getTimestamp(i);
+        if (ec == java.sql.Date.class)
+            return (rs, i, e, d) -> rs.getDate(i);
+        if (ec == Date.class)
+            return (rs, i, e, d) -> {
+                Timestamp ts = rs.getTimestamp(i);
+                return ts == null ? null : new Date(ts.getTime());
+            };
+        return EntityRowMapper::readObject;
+    }
+
+    private static Object readObject(ResultSet rs, int index, BeanElement be, Dialect dialect) throws SQLException {
+        Object value = filter(rs.getObject(index));
+        return value == null ? null : dialect.mappingToObject(value, be);
+    }
+
+    private static Object nullIfWasNull(ResultSet rs, Object value) throws SQLException {
+        return rs.wasNull() ? null : value;
+    }
+
+    private static Object filter(Object value) {
+        if (value instanceof String) {
+            String str = (String) value;
+            return str.replace("<","&lt").replace(">","&gt");
+        }
+        return value;
+    }
+}
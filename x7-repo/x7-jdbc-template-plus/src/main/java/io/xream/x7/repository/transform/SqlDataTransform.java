@@ -24,6 +24,7 @@ import io.xream.x7.common.web.Page;
 import io.xream.x7.repository.KeyOne;
 import io.xream.x7.repository.dao.Dao;
 
+import java.sql.Statement;
 import java.util.List;
 import java.util.Map;
 
@@ -58,10 +59,42 @@ public class SqlDataTransform implements DataTransform {
     @Override
     public boolean createBatch(List<?> objList) {
 
+        for (int count : this.dao.createBatch(objList)) {
+            if (count == Statement.EXECUTE_FAILED)
+                return false;
+        }
+        return true;
+
+    }
+
+    @Override
+    public int[] createBatchCounts(List<?> objList) {
+
         return this.dao.createBatch(objList);
 
     }
 
+    @Override
+    public int[] createOrReplaceBatch(List<?> objList) {
+
+        return this.dao.createOrReplaceBatch(objList);
+
+    }
+
+    @Override
+    public int[] refreshBatch(List<?> objList) {
+
+        return this.dao.refreshBatch(objList);
+
+    }
+
+    @Override
+    public <T> int[] removeBatch(Class<T> clz, List<?> keyOneList) {
+
+        return this.dao.removeBatch(clz, keyOneList);
+
+    }
+
     @Override
     public <T> T getOne(T condition) {
         return this.dao.getOne(condition);
@@ -21,7 +21,11 @@ import io.xream.x7.exception.DistributionLockException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.TimeUnit;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 
 public class DistributionLock {
@@ -31,53 +35,233 @@ public class DistributionLock {
     private static int INTERVAL = 1000;
     protected static int TIMEOUT = 10 * 1000;
 
+    private final static ScheduledExecutorService WATCHDOG = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "x7-lock-watchdog");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final static ThreadLocal<Map<String, Lock>> HELD = ThreadLocal.withInitial(HashMap::new);
+
     private static LockProvider lockProvider;
     public static void init(LockProvider lp) {
         lockProvider = lp;
     }
 
-    private static void lock(String key, int interval, int timeout, boolean abortingIfNoLock) {
+    /**
+     * the threads of this JVM queue on the local lock of the key, <br>
+     * only the head competes for the distributed lock, <br>
+     * try lock, if not locked, wait for the release notified, <br>
+     * or for the interval if no notification, until timeout
+     */
+    private static void lock(Lock lock, int interval, int timeout, boolean abortingIfNoLock) {
 
         if (lockProvider == null)
             throw new RuntimeException("No implements of LockProvider, like the project x7-repo/x7-redis-integration");
 
-        int i = 1;
-        boolean locked = lockProvider.lock(key,timeout);
-        int retryMax = timeout / interval ;
+        if (timeout <= 0)
+            timeout = LockProvider.DEFAULT_TIMEOUT;
+        if (interval <= 0)
+            interval = INTERVAL;
+
+        final String key = lock.getKey();
+        final long deadline = System.currentTimeMillis() + timeout;
+        if (!Local.lock(key, lock.mode, abortingIfNoLock ? 0 : timeout)) {
+            logger.info("Get local lock failed, lockKey: " + key);
+            throw new DistributionLockException();
+        }
+
+        try {
+            lockDistributed(lock, interval, timeout, deadline, abortingIfNoLock);
+        } catch (RuntimeException e) {
+            Local.unLock(key, lock.mode);
+            throw e;
+        }
+    }
+
+    private static void lockDistributed(Lock lock, int interval, int timeout, long deadline, boolean abortingIfNoLock) {
+
+        final String key = lock.getKey();
+        boolean locked = tryLock(lock, timeout);
+        CompletableFuture<Void> released = null;
         if (!abortingIfNoLock) {
             while (!locked) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0)
+                    break;
+                released = lockProvider.awaitUnLock(key);
+                locked = tryLock(lock, timeout);
+                if (locked)
+                    break;
+                long waitMillis = Math.min(interval, remaining);
                 try {
-                    TimeUnit.MILLISECONDS.sleep(interval);
-                    locked = lockProvider.lock(key, timeout);
-                    i++;
+                    if (released == null) {
+                        TimeUnit.MILLISECONDS.sleep(waitMillis);
+                    } else {
+                        released.get(waitMillis, TimeUnit.MILLISECONDS);
+                    }
+                } catch (TimeoutException e) {
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
                 } catch (Exception e) {
                     break;
                 }
-                if (i >= retryMax) break;
+                locked = tryLock(lock, timeout);
             }
         }
+        if (released != null) {
+            lockProvider.cancelAwait(key, released);
+        }
 
         if (!locked) {
             logger.info("Get distributed lock failed, lockKey: " + key);
             throw new DistributionLockException();
         }
+
+        startWatchdog(lock, timeout);
+    }
+
+    private static boolean tryLock(Lock lock, int timeout) {
+        return lock.mode == LockMode.READ
+                ? lockProvider.lockRead(lock.getKey(), lock.getToken(), timeout)
+                : lockProvider.lock(lock.getKey(), lock.getToken(), timeout);
+    }
+
+    /**
+     * renew the lease at 1/3 of timeout, until unlock or lost
+     */
+    private static void startWatchdog(Lock lock, int timeout) {
+        long period = Math.max(timeout / 3, 10);
+        lock.watchdog = WATCHDOG.scheduleAtFixedRate(() -> {
+            try {
+                if (!lockProvider.renew(lock.getKey(), lock.getToken(), timeout)) {
+                    logger.info("Distributed lock lost, lockKey: " + lock.getKey());
+                    stopWatchdog(lock);
+                }
+            } catch (Exception e) {
+                logger.info("Renew distributed lock failed, lockKey: " + lock.getKey());
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    private static void stopWatchdog(Lock lock) {
+        ScheduledFuture<?> watchdog = lock.watchdog;
+        if (watchdog != null) {
+            watchdog.cancel(false);
+        }
     }
 
     private static void unLock( Lock lock){
-        lockProvider.unLock(lock);
+        stopWatchdog(lock);
+        try {
+            lockProvider.unLock(lock);
+        } finally {
+            Local.unLock(lock.getKey(), lock.mode);
+        }
     }
 
-    private static void unLockAsync( String key){
+    private static void unLockAsync( Lock lock){
+        stopWatchdog(lock);
+        try {
+            lockProvider.unLockAsync(lock);
+        } finally {
+            Local.unLock(lock.getKey(), lock.mode);
+        }
+    }
+
+    /**
+     * fair read write lock per key, removed when no thread holding or waiting
+     */
+    private static class Local {
+
+        private final static Map<String, Local> LOCAL_MAP = new ConcurrentHashMap<>();
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock(true);
+        private int users;
+
+        private static boolean lock(String key, LockMode mode, long timeoutMillis) {
+            Local local = LOCAL_MAP.compute(key, (k, l) -> {
+                if (l == null)
+                    l = new Local();
+                l.users++;
+                return l;
+            });
+            java.util.concurrent.locks.Lock lock = mode == LockMode.READ ? local.lock.readLock() : local.lock.writeLock();
+            boolean locked = false;
+            try {
+                locked = timeoutMillis <= 0
+                        ? lock.tryLock()
+                        : lock.tryLock(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (!locked) {
+                release(key);
+            }
+            return locked;
+        }
+
+        private static void unLock(String key, LockMode mode) {
+            Local local = LOCAL_MAP.get(key);
+            if (local == null)
+                return;
+            if (mode == LockMode.READ) {
+                if (local.lock.getReadHoldCount() == 0)
+                    return;
+                local.lock.readLock().unlock();
+            } else {
+                if (!local.lock.isWriteLockedByCurrentThread())
+                    return;
+                local.lock.writeLock().unlock();
+            }
+            release(key);
+        }
+
+        private static void release(String key) {
+            LOCAL_MAP.computeIfPresent(key, (k, l) -> --l.users == 0 ? null : l);
+        }
     }
 
     public static Lock by(String key){
+        return by(key, LockMode.WRITE);
+    }
+
+    public static Lock by(String key, LockMode mode){
         Lock ml = new Lock();
         ml.setKey(key+"~LOCK");
+        ml.mode = mode;
         return ml;
     }
 
+    /**
+     * the lock held by current thread on the key, <br>
+     * WRITE held allows nested READ or WRITE, READ held allows nested READ only
+     */
+    private static Lock reenter(Lock lock) {
+        Lock held = HELD.get().get(lock.getKey());
+        if (held == null)
+            return null;
+        if (held.mode == LockMode.READ && lock.mode == LockMode.WRITE) {
+            logger.info("Upgrade READ to WRITE not supported, lockKey: " + lock.getKey());
+            throw new DistributionLockException();
+        }
+        held.holds++;
+        return held;
+    }
+
+    private static void exit(Lock held) {
+        if (--held.holds == 0) {
+            HELD.get().remove(held.getKey());
+        }
+    }
+
     public static class Lock{
         private  String key;
+        private final String token = UUID.randomUUID().toString();
+        private LockMode mode = LockMode.WRITE;
+        private int holds;
+        private volatile ScheduledFuture<?> watchdog;
 
         private Lock(){}
 
@@ -89,6 +273,14 @@ public class DistributionLock {
             return this.key;
         }
 
+        public String getToken() {
+            return this.token;
+        }
+
+        public LockMode getMode() {
+            return this.mode;
+        }
+
         public <T> T lock(Task<T> obj){
             return lock(INTERVAL,TIMEOUT,false,obj);
         }
@@ -99,37 +291,52 @@ public class DistributionLock {
                 boolean abortingIfNoLock,
                 Task<T> obj){
 
-            DistributionLock.lock(key,intervalMS,timeoutMS,abortingIfNoLock);
-            T o = null;
+            Lock held = reenter(this);
+            if (held == null) {
+                DistributionLock.lock(this, intervalMS, timeoutMS, abortingIfNoLock);
+                held = this;
+                this.holds = 1;
+                HELD.get().put(this.key, this);
+            }
             try {
-                o = obj.run(obj);
+                return obj.run(obj);
+            }catch (RuntimeException e) {
+                throw e;
             }catch (Exception e) {
-                DistributionLock.unLock(this);
-                if (e instanceof RuntimeException) {
-                    throw (RuntimeException) e;
-                }else {
-                    throw new RuntimeException(e.getMessage());
-                }
+                throw new RuntimeException(e.getMessage());
             }finally {
-                DistributionLock.unLock(this);
+                exit(held);
+                if (held == this) {
+                    DistributionLock.unLock(this);
+                }
             }
-            return o;
         }
 
         public <T> T lockAsync(Task<T> obj){
-            DistributionLock.lock(key,INTERVAL,TIMEOUT,false);
+            Lock held = reenter(this);
+            if (held == null) {
+                DistributionLock.lock(this, INTERVAL, TIMEOUT, false);
+                held = this;
+                this.holds = 1;
+                HELD.get().put(this.key, this);
+            }
             T o = null;
             try {
                 o = obj.run(obj);
             }catch (Exception e) {
-                DistributionLock.unLock(this);
+                exit(held);
+                if (held == this) {
+                    DistributionLock.unLock(this);
+                }
                 if (e instanceof RuntimeException) {
                     throw (RuntimeException) e;
                 }else {
                     throw new RuntimeException(e.getMessage());
                 }
-            }finally {
-                DistributionLock.unLockAsync(key);
+            }
+            exit(held);
+            if (held == this) {
+                DistributionLock.unLockAsync(this);
             }
             return o;
         }
@@ -26,4 +26,9 @@ public @interface Lock {
     int timeout() default 100000;
     String condition() default "";
     boolean abortingIfNoLock() default false;
+    /**
+     * READ: shared, WRITE: exclusive <br>
+     * nested on the same key in the same thread is reentrant
+     */
+    LockMode mode() default LockMode.WRITE;
 }
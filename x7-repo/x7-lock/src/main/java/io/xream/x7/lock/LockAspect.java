@@ -48,7 +48,7 @@ public class LockAspect {
         int timeout = lock.timeout();
         boolean abortingIfNoLock = lock.abortingIfNoLock();
 
-        return DistributionLock.by(key).lock(
+        return DistributionLock.by(key, lock.mode()).lock(
                 interval,
                 timeout,
                 abortingIfNoLock,
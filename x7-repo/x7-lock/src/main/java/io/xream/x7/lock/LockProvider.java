@@ -17,12 +17,68 @@
 package io.xream.x7.lock;
 
 import javax.validation.constraints.NotNull;
+import java.util.concurrent.CompletableFuture;
 
 public interface LockProvider {
 
     String VALUE = "~LOCK";
     int DEFAULT_TIMEOUT = 100000;
 
+    /**
+     * exclusive, set VALUE if absent, expired after timeOut
+     * @deprecated no owner, implement lock(key, token, timeOut)
+     */
+    @Deprecated
     boolean lock(String key, @NotNull Integer timeOut);
+
+    /**
+     * exclusive, set the owner token if absent, expired after timeOut <br>
+     * default: lock(key, timeOut), the token ignored
+     */
+    default boolean lock(String key, String token, @NotNull Integer timeOut) {
+        return lock(key, timeOut);
+    }
+
+    /**
+     * shared with other readers, add the owner token if no writer <br>
+     * default: exclusive
+     */
+    default boolean lockRead(String key, String token, @NotNull Integer timeOut) {
+        return lock(key, token, timeOut);
+    }
+
+    /**
+     * extend the lease, only if the lock still owned by the token <br>
+     * default: false, not renewed, the lock expired after timeOut
+     */
+    default boolean renew(String key, String token, @NotNull Integer timeOut) {
+        return false;
+    }
+
+    /**
+     * remove the owner token, delete the lock if no owner left
+     */
     void unLock(DistributionLock.Lock lock);
+
+    /**
+     * queue the unLock, return at once <br>
+     * default: unLock
+     */
+    default void unLockAsync(DistributionLock.Lock lock) {
+        unLock(lock);
+    }
+
+    /**
+     * completed when the lock released by the owner <br>
+     * null, if not supported, the waiter polling by interval
+     */
+    default CompletableFuture<Void> awaitUnLock(String key) {
+        return null;
+    }
+
+    /**
+     * the waiter gone, locked or timeout, drop the future of awaitUnLock
+     */
+    default void cancelAwait(String key, CompletableFuture<Void> released) {
+    }
 }
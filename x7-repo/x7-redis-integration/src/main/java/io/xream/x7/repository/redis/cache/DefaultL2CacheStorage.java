@@ -28,10 +28,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Component;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
@@ -121,6 +127,112 @@ public final class DefaultL2CacheStorage implements L2CacheStorage {
     }
 
 
+    public boolean multiSet(Map<String, String> map, int validSeconds, TimeUnit timeUnit) {
+        if (map == null || map.isEmpty())
+            return false;
+        final RedisSerializer<String> serializer = stringRedisTemplate.getStringSerializer();
+        Map<String, byte[]> bytesMap = new LinkedHashMap<>(map.size() * 4 / 3 + 1);
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            bytesMap.put(entry.getKey(), serializer.serialize(entry.getValue()));
+        }
+        return multiSetBytes(bytesMap, validSeconds, timeUnit);
+    }
+
+
+    public boolean multiSetBytes(Map<String, byte[]> map, int validSeconds, TimeUnit timeUnit) {
+        return this.handle(new BackendService<Boolean>() {
+            @Override
+            public Boolean handle() {
+                if (map == null || map.isEmpty())
+                    return false;
+                final RedisSerializer<String> serializer = stringRedisTemplate.getStringSerializer();
+                final Expiration expiration = Expiration.from(validSeconds, timeUnit);
+                stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    for (Map.Entry<String, byte[]> entry : map.entrySet()) {
+                        connection.set(serializer.serialize(entry.getKey()), entry.getValue(),
+                                expiration, RedisStringCommands.SetOption.UPSERT);
+                    }
+                    return null;
+                });
+                return true;
+            }
+
+            @Override
+            public Boolean fallback() {
+                if (fallbackStorage != null)
+                    return fallbackStorage.multiSetBytes(map,validSeconds,timeUnit);
+                return null;
+            }
+        });
+    }
+
+
+    public boolean setBytes(String key, byte[] value, int validSeconds, TimeUnit timeUnit) {
+        return this.handle(new BackendService<Boolean>() {
+            @Override
+            public Boolean handle() {
+                if (key == null || key.equals(""))
+                    return false;
+                final RedisSerializer<String> serializer = stringRedisTemplate.getStringSerializer();
+                final Expiration expiration = Expiration.from(validSeconds, timeUnit);
+                return stringRedisTemplate.execute((RedisCallback<Boolean>) connection ->
+                        connection.set(serializer.serialize(key), value, expiration, RedisStringCommands.SetOption.UPSERT));
+            }
+
+            @Override
+            public Boolean fallback() {
+                if (fallbackStorage != null)
+                    return fallbackStorage.setBytes(key,value,validSeconds,timeUnit);
+                return null;
+            }
+        });
+    }
+
+
+    public byte[] getBytes(String key) {
+        return this.handle(new BackendService<byte[]>() {
+            @Override
+            public byte[] handle() {
+                final RedisSerializer<String> serializer = stringRedisTemplate.getStringSerializer();
+                return stringRedisTemplate.execute((RedisCallback<byte[]>) connection ->
+                        connection.get(serializer.serialize(key)));
+            }
+
+            @Override
+            public byte[] fallback() {
+                if (fallbackStorage != null)
+                    return fallbackStorage.getBytes(key);
+                return null;
+            }
+        });
+    }
+
+
+    public List<byte[]> multiGetBytes(List<String> keyList) {
+        return this.handle(new BackendService<List<byte[]>>() {
+            @Override
+            public List<byte[]> handle() {
+                if (keyList == null || keyList.isEmpty())
+                    return null;
+                final RedisSerializer<String> serializer = stringRedisTemplate.getStringSerializer();
+                final byte[][] keys = new byte[keyList.size()][];
+                for (int i = 0; i < keys.length; i++) {
+                    keys[i] = serializer.serialize(keyList.get(i));
+                }
+                return stringRedisTemplate.execute((RedisCallback<List<byte[]>>) connection ->
+                        connection.mGet(keys));
+            }
+
+            @Override
+            public List<byte[]> fallback() {
+                if (fallbackStorage != null)
+                    return fallbackStorage.multiGetBytes(keyList);
+                return null;
+            }
+        });
+    }
+
+
     public String get(String key) {
 
         return this.handle(new BackendService<String>() {
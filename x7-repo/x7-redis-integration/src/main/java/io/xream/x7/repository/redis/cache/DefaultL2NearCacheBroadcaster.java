@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.xream.x7.repository.redis.cache;
+
+import io.xream.x7.cache.L2NearCache;
+import io.xream.x7.cache.L2NearCacheBroadcaster;
+import io.xream.x7.common.util.ExceptionUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * redis pub/sub for near cache <br>
+ * message: className + SEPARATOR + key
+ */
+@Component
+public final class DefaultL2NearCacheBroadcaster implements L2NearCacheBroadcaster, MessageListener, DisposableBean {
+
+    private final static Logger logger = LoggerFactory.getLogger(DefaultL2NearCacheBroadcaster.class);
+
+    public final static String CHANNEL = "x7.l2cache.near";
+    private final static String SEPARATOR = "\n";
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    private L2NearCache nearCache;
+    private RedisMessageListenerContainer container;
+
+    @Override
+    public void publish(Class clz, String key) {
+        String message = clz.getName() + SEPARATOR + (key == null ? "" : key);
+        try {
+            this.stringRedisTemplate.convertAndSend(CHANNEL, message);
+        } catch (Exception e) {
+            logger.info("Publish to {} failed, {}", CHANNEL, ExceptionUtil.getMessage(e));
+        }
+    }
+
+    @Override
+    public synchronized void subscribe(L2NearCache nearCache) {
+        this.nearCache = nearCache;
+        if (this.container != null)
+            return;
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(this.stringRedisTemplate.getConnectionFactory());
+        container.addMessageListener(this, new ChannelTopic(CHANNEL));
+        container.afterPropertiesSet();
+        container.start();
+        this.container = container;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        L2NearCache nearCache = this.nearCache;
+        if (nearCache == null)
+            return;
+        String str = new String(message.getBody(), StandardCharsets.UTF_8);
+        int i = str.indexOf(SEPARATOR);
+        if (i < 0)
+            return;
+        String key = str.substring(i + 1);
+        try {
+            Class clz = Class.forName(str.substring(0, i));
+            nearCache.invalidate(clz, key.isEmpty() ? null : key);
+        } catch (ClassNotFoundException e) {
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (this.container != null) {
+            this.container.destroy();
+        }
+    }
+}
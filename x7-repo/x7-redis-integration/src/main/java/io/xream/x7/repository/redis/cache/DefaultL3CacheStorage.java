@@ -17,17 +17,40 @@
 package io.xream.x7.repository.redis.cache;
 
 import io.xream.x7.cache.L3CacheStorage;
+import io.xream.x7.cache.L3LocalCache;
 import io.xream.x7.common.cache.Protection;
 import io.xream.x7.common.util.StringUtil;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 @Component
-public final class DefaultL3CacheStorage implements L3CacheStorage {
+public final class DefaultL3CacheStorage implements L3CacheStorage, MessageListener, InitializingBean, DisposableBean {
+
+    public final static String CHANNEL_FILLED = "x7.l3cache.filled";
+
+    private final Map<String, CompletableFuture<Void>> waitingMap = new ConcurrentHashMap<>();
+    private RedisMessageListenerContainer container;
 
     @Autowired
     private StringRedisTemplate stringRedisTemplate;
@@ -36,12 +59,49 @@ public final class DefaultL3CacheStorage implements L3CacheStorage {
         this.stringRedisTemplate = stringRedisTemplate;
     }
 
+    @Value("${x7.cache.l3.local.max-size:10000}")
+    private int localMaxSize = 10000;
+
+    @Value("${x7.cache.l3.local.max-weight:16777216}")
+    private long localMaxWeight = 16777216;
+
+    /**
+     * built with the default sizes, not only by Spring, <br>
+     * rebuilt when the sizes changed
+     */
+    private volatile L3LocalCache localCache = new L3LocalCache(localMaxSize, localMaxWeight);
+    private int builtMaxSize = localMaxSize;
+    private long builtMaxWeight = localMaxWeight;
+
+    public void setLocalMaxSize(int localMaxSize) {
+        this.localMaxSize = localMaxSize;
+        rebuildLocalCache();
+    }
+
+    public void setLocalMaxWeight(long localMaxWeight) {
+        this.localMaxWeight = localMaxWeight;
+        rebuildLocalCache();
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        rebuildLocalCache();
+    }
+
+    private synchronized void rebuildLocalCache() {
+        if (this.builtMaxSize == this.localMaxSize && this.builtMaxWeight == this.localMaxWeight)
+            return;
+        this.builtMaxSize = this.localMaxSize;
+        this.builtMaxWeight = this.localMaxWeight;
+        this.localCache = new L3LocalCache(this.localMaxSize, this.localMaxWeight);
+    }
+
     @Override
     public void set(String key, String value, long expireTime, TimeUnit timeUnit) {
         
         value = (value == null ? Protection.DEFAULT_VALUE : value);
 
-        PluginL1.putBeforeL3(key,value,expireTime,timeUnit);
+        putBeforeL3(key,value,expireTime,timeUnit);
 
         this.stringRedisTemplate.opsForValue().set(key,
                 value,
@@ -51,11 +111,11 @@ public final class DefaultL3CacheStorage implements L3CacheStorage {
 
     @Override
     public String get(String key,long expireTime, TimeUnit timeUnit) {
-        String value = PluginL1.get(key);
+        String value = this.localCache.get(key);
         if (StringUtil.isNullOrEmpty(value)){
             value = this.stringRedisTemplate.opsForValue().get(key);
             if (StringUtil.isNotNull(value)){
-                PluginL1.putBeforeL3(key,value,expireTime,timeUnit);
+                putBeforeL3(key,value,expireTime,timeUnit);
             }
         }
         
@@ -63,91 +123,114 @@ public final class DefaultL3CacheStorage implements L3CacheStorage {
     }
 
 
-    public static class PluginL1 {
-
-        private final static Map<String, Wrapper> map = new ConcurrentHashMap<>();
-
-        private final static ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
-
-
-        private static long convertToMillisForL1(long expireTime, TimeUnit timeUnit) {
-            long time = TimeUnit.MILLISECONDS.convert(expireTime, timeUnit);
-            if (time <= 2000)
-                return time/2;
-            if (time <= 6000)
-                return time/3;
-            if (time <= 16000)
-                return time/4;
-            if (time <= 30000)
-                return time/5;
-            return 6000;
-        }
-
-        public static void putBeforeL3(String key, String value, long expireTime, TimeUnit timeUnit ){
-            long expire = convertToMillisForL1(expireTime,timeUnit);
-
-            put(key,value,expire);
+    @Override
+    public List<String> multiGet(List<String> keyList, long expireTime, TimeUnit timeUnit) {
+        List<String> valueList = new ArrayList<>(keyList.size());
+        List<String> missedKeyList = new ArrayList<>();
+        for (String key : keyList) {
+            String value = this.localCache.get(key);
+            if (StringUtil.isNullOrEmpty(value)) {
+                value = null;
+                missedKeyList.add(key);
+            }
+            valueList.add(value);
         }
-
-        public static void put(String key, String value, long expire) {
-
-            remove(key);
-
-            if (expire > 0) {
-                Future future = executor.schedule(() -> {
-                    map.remove(key);
-                }, expire, TimeUnit.MILLISECONDS);
-                map.put(key, new Wrapper(value, future));
-            } else {
-                map.put(key, new Wrapper(value, null));
+        if (missedKeyList.isEmpty())
+            return valueList;
+
+        List<String> missedValueList = this.stringRedisTemplate.opsForValue().multiGet(missedKeyList);
+        if (missedValueList == null)
+            return valueList;
+        Iterator<String> ite = missedValueList.iterator();
+        for (int i = 0, size = valueList.size(); i < size && ite.hasNext(); i++) {
+            if (valueList.get(i) != null)
+                continue;
+            String value = ite.next();
+            if (StringUtil.isNotNull(value)) {
+                valueList.set(i, value);
+                putBeforeL3(keyList.get(i), value, expireTime, timeUnit);
             }
         }
+        return valueList;
+    }
 
-        public static String get(String key) {
-            Wrapper Wrapper = map.get(key);
-            return Wrapper == null ? null : Wrapper.getValue();
-        }
-        
+    @Override
+    public void multiSet(Map<String, String> map, long expireTime, TimeUnit timeUnit) {
+        if (map.isEmpty())
+            return;
+        final RedisSerializer<String> serializer = this.stringRedisTemplate.getStringSerializer();
+        final Expiration expiration = Expiration.from(expireTime, timeUnit);
+        this.stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Map.Entry<String, String> entry : map.entrySet()) {
+                String value = entry.getValue() == null ? Protection.DEFAULT_VALUE : entry.getValue();
+                putBeforeL3(entry.getKey(), value, expireTime, timeUnit);
+                connection.set(serializer.serialize(entry.getKey()), serializer.serialize(value),
+                        expiration, RedisStringCommands.SetOption.UPSERT);
+            }
+            return null;
+        });
+    }
 
-        public static String remove(String key) {
+    @Override
+    public void notifyFilled(String key) {
+        this.stringRedisTemplate.convertAndSend(CHANNEL_FILLED, key);
+    }
 
-            Wrapper Wrapper = map.remove(key);
-            if (Wrapper == null)
-                return null;
+    @Override
+    public CompletableFuture<Void> awaitFilled(String key) {
+        subscribe();
+        CompletableFuture<Void> future = this.waitingMap.compute(key,
+                (k, f) -> f == null || f.isDone() ? new CompletableFuture<>() : f);
+        future.whenComplete((v, e) -> this.waitingMap.remove(key, future));
+        return future;
+    }
 
-            Future future = Wrapper.getFuture();
-            if (future != null)
-                future.cancel(true);
-            return Wrapper.getValue();
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String key = new String(message.getBody(), StandardCharsets.UTF_8);
+        CompletableFuture<Void> future = this.waitingMap.remove(key);
+        if (future != null) {
+            future.complete(null);
         }
+    }
 
+    private synchronized void subscribe() {
+        if (this.container != null)
+            return;
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(this.stringRedisTemplate.getConnectionFactory());
+        container.addMessageListener(this, new ChannelTopic(CHANNEL_FILLED));
+        container.afterPropertiesSet();
+        container.start();
+        this.container = container;
+    }
 
-        private static class Wrapper {
-
-            private String value;
-            private Future future;
-
-            public Wrapper(String value, Future future) {
-                this.value = value;
-                this.future = future;
-            }
+    @Override
+    public void destroy() throws Exception {
+        if (this.container != null) {
+            this.container.destroy();
+        }
+    }
 
-            public String getValue() {
-                return value;
-            }
 
-            public Future getFuture() {
-                return future;
-            }
+    private static long convertToMillisForL1(long expireTime, TimeUnit timeUnit) {
+        long time = TimeUnit.MILLISECONDS.convert(expireTime, timeUnit);
+        if (time <= 2000)
+            return time/2;
+        if (time <= 6000)
+            return time/3;
+        if (time <= 16000)
+            return time/4;
+        if (time <= 30000)
+            return time/5;
+        return 6000;
+    }
 
-            @Override
-            public String toString() {
-                return "Wrapper{" +
-                        "value=" + value +
-                        ", future=" + future +
-                        '}';
-            }
-        }
+    private void putBeforeL3(String key, String value, long expireTime, TimeUnit timeUnit) {
+        this.localCache.put(key, value, convertToMillisForL1(expireTime, timeUnit), TimeUnit.MILLISECONDS);
+    }
 
+    public L3LocalCache getLocalCache() {
+        return this.localCache;
     }
 }
@@ -40,6 +40,18 @@ public class DefaultIdGeneratorPolicy implements IdGeneratorPolicy {
 
     }
 
+    @Override
+    public long reserve(String clzName, int size) {
+
+        return this.stringRedisTemplate.opsForHash().increment(ID_MAP_KEY,clzName,size);
+
+    }
+
+    @Override
+    public boolean isSegmentSupported() {
+        return true;
+    }
+
     @Override
     public void onStart(List<IdGenerator> idGeneratorList) {
 
@@ -21,39 +21,256 @@ import io.xream.x7.lock.DistributionLock;
 import io.xream.x7.lock.LockProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.stereotype.Component;
 
 import javax.validation.constraints.NotNull;
-import java.util.concurrent.TimeUnit;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
 
 @Component
-public class DefaultLockProvider implements LockProvider {
+public class DefaultLockProvider implements LockProvider, MessageListener, DisposableBean {
 
     private final static Logger logger = LoggerFactory.getLogger(DefaultLockProvider.class);
 
+    public final static String CHANNEL_RELEASED = "x7.lock.released";
+
+    /*
+     * lock hash: {mode: read|write, token: 1, ...}
+     */
+    private final static RedisScript<Long> LOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 0 then " +
+                    "redis.call('hset', KEYS[1], 'mode', 'write'); " +
+                    "redis.call('hset', KEYS[1], ARGV[1], 1); " +
+                    "redis.call('pexpire', KEYS[1], ARGV[2]); " +
+                    "return 1 " +
+                    "end " +
+                    "return 0",
+            Long.class);
+
+    private final static RedisScript<Long> LOCK_READ_SCRIPT = new DefaultRedisScript<>(
+            "local mode = redis.call('hget', KEYS[1], 'mode'); " +
+                    "if mode == false or mode == 'read' then " +
+                    "redis.call('hset', KEYS[1], 'mode', 'read'); " +
+                    "redis.call('hset', KEYS[1], ARGV[1], 1); " +
+                    "if redis.call('pttl', KEYS[1]) < tonumber(ARGV[2]) then " +
+                    "redis.call('pexpire', KEYS[1], ARGV[2]) " +
+                    "end " +
+                    "return 1 " +
+                    "end " +
+                    "return 0",
+            Long.class);
+
+    private final static RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('hexists', KEYS[1], ARGV[1]) == 1 then " +
+                    "if redis.call('pttl', KEYS[1]) < tonumber(ARGV[2]) then " +
+                    "redis.call('pexpire', KEYS[1], ARGV[2]) " +
+                    "end " +
+                    "return 1 " +
+                    "end " +
+                    "return 0",
+            Long.class);
+
+    private final static RedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('hexists', KEYS[1], ARGV[1]) == 0 then " +
+                    "return 0 " +
+                    "end " +
+                    "redis.call('hdel', KEYS[1], ARGV[1]); " +
+                    "if redis.call('hlen', KEYS[1]) <= 1 then " +
+                    "redis.call('del', KEYS[1]); " +
+                    "redis.call('publish', ARGV[2], KEYS[1]) " +
+                    "end " +
+                    "return 1",
+            Long.class);
+
+    private final static int RELEASE_BATCH = 128;
+
+    private final Map<String, CompletableFuture<Void>> waitingMap = new ConcurrentHashMap<>();
+    private RedisMessageListenerContainer container;
+
+    private final BlockingQueue<DistributionLock.Lock> releaseQueue = new LinkedBlockingQueue<>();
+    private volatile Thread releaser;
+
     @Autowired
     private StringRedisTemplate stringRedisTemplate;
 
+    @Deprecated
     @Override
     public boolean lock(String key, @NotNull Integer timeOut){
+        return lock(key, VALUE, timeOut);
+    }
+
+    @Override
+    public boolean lock(String key, String token, @NotNull Integer timeOut){
+        return execute(LOCK_SCRIPT, key, token, timeOut);
+    }
+
+    @Override
+    public boolean lockRead(String key, String token, @NotNull Integer timeOut){
+        return execute(LOCK_READ_SCRIPT, key, token, timeOut);
+    }
+
+    private boolean execute(RedisScript<Long> script, String key, String token, Integer timeOut) {
         if (timeOut.intValue() == 0)
             timeOut = DEFAULT_TIMEOUT;
         try {
-            return this.stringRedisTemplate.opsForValue().setIfAbsent(key, VALUE, timeOut, TimeUnit.MILLISECONDS);
+            Long result = this.stringRedisTemplate.execute(script,
+                    Collections.singletonList(key), token, String.valueOf(timeOut));
+            return result != null && result.longValue() == 1;
         }catch (Exception e) {
             logger.error("DistributionLock.lock Exception: {}", ExceptionUtil.getMessage(e));
             return true;
         }
     }
 
+    @Override
+    public boolean renew(String key, String token, @NotNull Integer timeOut) {
+        if (timeOut.intValue() == 0)
+            timeOut = DEFAULT_TIMEOUT;
+        Long result = this.stringRedisTemplate.execute(RENEW_SCRIPT,
+                Collections.singletonList(key), token, String.valueOf(timeOut));
+        return result != null && result.longValue() == 1;
+    }
+
     @Override
     public void unLock(DistributionLock.Lock lock){
         try {
-            this.stringRedisTemplate.delete(lock.getKey());
+            this.stringRedisTemplate.execute(UNLOCK_SCRIPT,
+                    Collections.singletonList(lock.getKey()), lock.getToken(), CHANNEL_RELEASED);
         }catch (Exception e){
             logger.error("DistributionLock.unlock Exception: {}", ExceptionUtil.getMessage(e));
         }
     }
+
+    @Override
+    public void unLockAsync(DistributionLock.Lock lock) {
+        startReleaser();
+        this.releaseQueue.offer(lock);
+    }
+
+    private synchronized void startReleaser() {
+        if (this.releaser != null)
+            return;
+        Thread t = new Thread(() -> {
+            List<DistributionLock.Lock> lockList = new ArrayList<>(RELEASE_BATCH);
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    lockList.add(this.releaseQueue.take());
+                } catch (InterruptedException e) {
+                    break;
+                }
+                this.releaseQueue.drainTo(lockList, RELEASE_BATCH - 1);
+                release(lockList);
+                lockList.clear();
+            }
+        }, "x7-lock-releaser");
+        t.setDaemon(true);
+        t.start();
+        this.releaser = t;
+    }
+
+    /**
+     * the unlock script of the batch in one pipeline
+     */
+    private void release(List<DistributionLock.Lock> lockList) {
+        final byte[] script = UNLOCK_SCRIPT.getScriptAsString().getBytes(StandardCharsets.UTF_8);
+        final byte[] channel = CHANNEL_RELEASED.getBytes(StandardCharsets.UTF_8);
+        try {
+            this.stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (DistributionLock.Lock lock : lockList) {
+                    connection.eval(script, ReturnType.INTEGER, 1,
+                            lock.getKey().getBytes(StandardCharsets.UTF_8),
+                            lock.getToken().getBytes(StandardCharsets.UTF_8),
+                            channel);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            logger.error("DistributionLock.unLockAsync Exception: {}", ExceptionUtil.getMessage(e));
+            for (DistributionLock.Lock lock : lockList) {
+                unLock(lock);
+            }
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> awaitUnLock(String key) {
+        try {
+            subscribe();
+        }catch (Exception e) {
+            logger.error("DistributionLock.subscribe Exception: {}", ExceptionUtil.getMessage(e));
+            return null;
+        }
+        CompletableFuture<Void> created = new CompletableFuture<>();
+        CompletableFuture<Void> future = this.waitingMap.compute(key,
+                (k, f) -> f == null || f.isDone() ? created : f);
+        if (future == created) {
+            created.whenComplete((v, e) -> this.waitingMap.remove(key, created));
+        }
+        return future;
+    }
+
+    /**
+     * removed, and completed, the other waiters on it retry at once, register again if still not locked
+     */
+    @Override
+    public void cancelAwait(String key, CompletableFuture<Void> released) {
+        if (this.waitingMap.remove(key, released)) {
+            released.complete(null);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String key = new String(message.getBody(), StandardCharsets.UTF_8);
+        CompletableFuture<Void> future = this.waitingMap.remove(key);
+        if (future != null) {
+            future.complete(null);
+        }
+    }
+
+    private synchronized void subscribe() {
+        if (this.container != null)
+            return;
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(this.stringRedisTemplate.getConnectionFactory());
+        container.addMessageListener(this, new ChannelTopic(CHANNEL_RELEASED));
+        container.afterPropertiesSet();
+        container.start();
+        this.container = container;
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        Thread t = this.releaser;
+        if (t != null) {
+            t.interrupt();
+            t.join(1000);
+            List<DistributionLock.Lock> lockList = new ArrayList<>();
+            this.releaseQueue.drainTo(lockList);
+            if (!lockList.isEmpty()) {
+                release(lockList);
+            }
+        }
+        if (this.container != null) {
+            this.container.destroy();
+        }
+    }
 }
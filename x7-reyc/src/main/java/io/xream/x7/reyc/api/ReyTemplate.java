@@ -16,9 +16,52 @@
  */
 package io.xream.x7.reyc.api;
 
+import io.xream.x7.api.AsyncBackendService;
 import io.xream.x7.api.BackendService;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 public interface ReyTemplate {
 
     String support(String circuitBreakerKey, boolean isRetry, BackendService<String> service);
+
+    /**
+     * true: the result of the service may be decoded from the stream, handled by supportDecoded <br>
+     * default: false, the response read as String, passed to support as before
+     */
+    default boolean isDecodingSupported() {
+        return false;
+    }
+
+    /**
+     * the result of the service decoded, not only String <br>
+     * default: support, the result of the service is String if not isDecodingSupported
+     */
+    @SuppressWarnings("unchecked")
+    default <T> T supportDecoded(String circuitBreakerKey, boolean isRetry, BackendService<T> service) {
+        return (T) support(circuitBreakerKey, isRetry, (BackendService<String>) (BackendService) service);
+    }
+
+    /**
+     * the executor of the default supportAsync, which blocks on support <br>
+     * default: a shared pool of daemon threads, not the common ForkJoinPool
+     */
+    default Executor asyncExecutor() {
+        return AsyncExecutorHolder.EXECUTOR;
+    }
+
+    default <T> CompletableFuture<T> supportAsync(String circuitBreakerKey, boolean isRetry, AsyncBackendService<T> service) {
+        return CompletableFuture.supplyAsync(() -> supportDecoded(circuitBreakerKey, isRetry, new BackendService<T>() {
+            @Override
+            public T handle() {
+                return service.handle().join();
+            }
+
+            @Override
+            public T fallback() {
+                return service.fallback();
+            }
+        }), asyncExecutor());
+    }
 }
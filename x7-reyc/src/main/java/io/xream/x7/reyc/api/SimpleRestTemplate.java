@@ -19,6 +19,8 @@ package io.xream.x7.reyc.api;
 import io.xream.x7.common.bean.KV;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 public interface SimpleRestTemplate {
 
@@ -30,4 +32,44 @@ public interface SimpleRestTemplate {
     String post(Class clz, String url, Object request, List<KV> headerList);
 
     String get(Class clz, String url, List<KV> headerList);
+
+    /**
+     * the body of a 2xx response is decoded by the decoder, without intermediate String <br>
+     * default: not decoded, the body is returned as String
+     */
+    default Object post(Class clz, String url, Object request, List<KV> headerList, ResponseDecoder decoder) {
+        return post(clz, url, request, headerList);
+    }
+
+    /**
+     * the body of a 2xx response is decoded by the decoder, without intermediate String <br>
+     * default: not decoded, the body is returned as String
+     */
+    default Object get(Class clz, String url, List<KV> headerList, ResponseDecoder decoder) {
+        return get(clz, url, headerList);
+    }
+
+    /**
+     * the executor of the default async methods, which wrap the blocking calls <br>
+     * default: a shared pool of daemon threads, not the common ForkJoinPool
+     */
+    default Executor asyncExecutor() {
+        return AsyncExecutorHolder.EXECUTOR;
+    }
+
+    default CompletableFuture<String> postAsync(Class clz, String url, Object request, List<KV> headerList) {
+        return CompletableFuture.supplyAsync(() -> post(clz, url, request, headerList), asyncExecutor());
+    }
+
+    default CompletableFuture<String> getAsync(Class clz, String url, List<KV> headerList) {
+        return CompletableFuture.supplyAsync(() -> get(clz, url, headerList), asyncExecutor());
+    }
+
+    default CompletableFuture<Object> postAsync(Class clz, String url, Object request, List<KV> headerList, ResponseDecoder decoder) {
+        return postAsync(clz, url, request, headerList).thenApply(result -> result);
+    }
+
+    default CompletableFuture<Object> getAsync(Class clz, String url, List<KV> headerList, ResponseDecoder decoder) {
+        return getAsync(clz, url, headerList).thenApply(result -> result);
+    }
 }
@@ -33,6 +33,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public class ClientParser {
 
@@ -97,6 +98,26 @@ public class ClientParser {
 
             String methodName = method.getName();
             Class<?> returnType = method.getReturnType();
+            Type genericReturnType = method.getGenericReturnType();
+
+            boolean isAsync = false;
+            if (returnType == CompletableFuture.class) {
+                isAsync = true;
+                if (! (genericReturnType instanceof ParameterizedType)) {
+                    logger.error("ReyClient not support raw CompletableFuture, while parsing " + method);
+                    System.exit(0);
+                }
+                Type t = ((ParameterizedType) genericReturnType).getActualTypeArguments()[0];
+                genericReturnType = t;
+                if (t instanceof ParameterizedType) {
+                    returnType = (Class<?>) ((ParameterizedType) t).getRawType();
+                } else if (t instanceof Class) {
+                    returnType = (Class<?>) t;
+                } else {
+                    logger.error("ReyClient not support genericReturnType of CompletableFuture<" + t + ">，while parsing " + method);
+                    System.exit(0);
+                }
+            }
 
             Annotation mappingAnno = method.getAnnotation(RequestMapping.class);
             if (mappingAnno == null) {
@@ -144,8 +165,7 @@ public class ClientParser {
 
             Class gtc = null;
             if (returnType == List.class) {
-                Type gt = method.getGenericReturnType();
-                ParameterizedType pt = (ParameterizedType)gt;
+                ParameterizedType pt = (ParameterizedType)genericReturnType;
                 Type t = pt.getActualTypeArguments()[0];
                 if (t instanceof ParameterizedType) {
                     logger.error("ReyClient not support complex genericReturnType, like List<List<?>>, or" +
@@ -161,6 +181,7 @@ public class ClientParser {
             methodParsed.setGeneType(gtc);
             methodParsed.setRequestMethod(rm);
             methodParsed.setHeaderList(hearderList);
+            methodParsed.setAsync(isAsync);
 
             parsed.getMap().put(methodName,methodParsed);
         }
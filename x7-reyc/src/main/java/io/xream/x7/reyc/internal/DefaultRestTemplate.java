@@ -20,25 +20,64 @@ import com.github.kristofa.brave.httpclient.BraveHttpRequestInterceptor;
 import com.github.kristofa.brave.httpclient.BraveHttpResponseInterceptor;
 import io.xream.x7.common.bean.KV;
 import io.xream.x7.reyc.api.HeaderInterceptor;
+import io.xream.x7.reyc.api.ResponseDecoder;
 import io.xream.x7.reyc.api.SimpleRestTemplate;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.*;
 
+/**
+ * One pooled CloseableHttpClient shared by all ReyClient calls, <br>
+ * connections are kept alive and reused per route, <br>
+ * pool size, keep-alive and idle eviction: see HttpProperties <br>
+ * async calls run on a pooled CloseableHttpAsyncClient, started on first use, <br>
+ * its expired and idle connections evicted the same way, by a daemon thread
+ */
 public class DefaultRestTemplate implements SimpleRestTemplate {
 
+    private static Logger logger = LoggerFactory.getLogger(DefaultRestTemplate.class);
+
+    private final static ScheduledExecutorService EVICTOR = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "x7-reyc-async-evictor");
+        t.setDaemon(true);
+        return t;
+    });
+
     private BraveHttpRequestInterceptor requestInterceptor;
     private BraveHttpResponseInterceptor responseInterceptor;
     private HttpProperties properties;
 
+    private volatile CloseableHttpClient httpClient;
+    private volatile CloseableHttpAsyncClient httpAsyncClient;
+    private ScheduledFuture<?> asyncEviction;
+    private RequestConfig requestConfig;
+
     private List<HeaderInterceptor> headerInterceptorList = new ArrayList<>();
     public void add(HeaderInterceptor headerInterceptor) {
         this.headerInterceptorList.add(headerInterceptor);
     }
 
     public DefaultRestTemplate(){
+        this.properties = new HttpProperties();
     }
 
     public DefaultRestTemplate(
@@ -55,7 +94,11 @@ public class DefaultRestTemplate implements SimpleRestTemplate {
         return requestInterceptor;
     }
 
-    public void setRequestInterceptor(BraveHttpRequestInterceptor requestInterceptor) {
+    /**
+     * before the first call only, the clients built are shared by the calls in flight
+     */
+    public synchronized void setRequestInterceptor(BraveHttpRequestInterceptor requestInterceptor) {
+        checkNotBuilt();
         this.requestInterceptor = requestInterceptor;
     }
 
@@ -63,10 +106,19 @@ public class DefaultRestTemplate implements SimpleRestTemplate {
         return responseInterceptor;
     }
 
-    public void setResponseInterceptor(BraveHttpResponseInterceptor responseInterceptor) {
+    /**
+     * before the first call only, the clients built are shared by the calls in flight
+     */
+    public synchronized void setResponseInterceptor(BraveHttpResponseInterceptor responseInterceptor) {
+        checkNotBuilt();
         this.responseInterceptor = responseInterceptor;
     }
 
+    private void checkNotBuilt() {
+        if (this.httpClient != null || this.httpAsyncClient != null)
+            throw new IllegalStateException("Http client already built, set the interceptors before the first call");
+    }
+
     public KV header(String key, String value){
         return new KV(key, value);
     }
@@ -74,13 +126,70 @@ public class DefaultRestTemplate implements SimpleRestTemplate {
     @Override
     public String post(Class clz, String url, Object request, List<KV> headerList) {
 
-        CloseableHttpClient httpclient = null;
-        if (requestInterceptor != null && responseInterceptor != null) {
-            httpclient = httpClient(requestInterceptor, responseInterceptor);
-        } else {
-            httpclient = HttpClients.createDefault();
-        }
+        return (String) post(clz, url, request, headerList, null);
+    }
+
+    @Override
+    public String get(Class clz, String url, List<KV> headerList) {
+
+        return (String) get(clz, url, headerList, null);
+    }
+
+    @Override
+    public Object post(Class clz, String url, Object request, List<KV> headerList, ResponseDecoder decoder) {
+
+        CloseableHttpClient httpclient = httpClient();
+
+        List<KV> tempHeaderList = headerList(headerList);
+
+        Object result = HttpClientUtil.post(clz,url,request,tempHeaderList,requestConfig,httpclient,decoder);
+
+        return result;
+    }
+
+    @Override
+    public Object get(Class clz, String url, List<KV> headerList, ResponseDecoder decoder) {
+
+        CloseableHttpClient httpclient = httpClient();
+
+        List<KV> tempHeaderList = headerList(headerList);
+
+        return HttpClientUtil.get(clz,url, tempHeaderList,requestConfig,httpclient,decoder);
+    }
+
+    @Override
+    public CompletableFuture<String> postAsync(Class clz, String url, Object request, List<KV> headerList) {
+
+        return postAsync(clz, url, request, headerList, null).thenApply(result -> (String) result);
+    }
+
+    @Override
+    public CompletableFuture<String> getAsync(Class clz, String url, List<KV> headerList) {
+
+        return getAsync(clz, url, headerList, null).thenApply(result -> (String) result);
+    }
+
+    @Override
+    public CompletableFuture<Object> postAsync(Class clz, String url, Object request, List<KV> headerList, ResponseDecoder decoder) {
+
+        CloseableHttpAsyncClient httpclient = httpAsyncClient();
+
+        List<KV> tempHeaderList = headerList(headerList);
+
+        return HttpClientUtil.postAsync(clz,url,request,tempHeaderList,requestConfig,httpclient,decoder);
+    }
+
+    @Override
+    public CompletableFuture<Object> getAsync(Class clz, String url, List<KV> headerList, ResponseDecoder decoder) {
 
+        CloseableHttpAsyncClient httpclient = httpAsyncClient();
+
+        List<KV> tempHeaderList = headerList(headerList);
+
+        return HttpClientUtil.getAsync(clz,url,tempHeaderList,requestConfig,httpclient,decoder);
+    }
+
+    private List<KV> headerList(List<KV> headerList) {
         List<KV> tempHeaderList = new ArrayList<>();
         for (HeaderInterceptor headerInterceptor : headerInterceptorList){
             KV kv = headerInterceptor.apply(this);
@@ -90,39 +199,149 @@ public class DefaultRestTemplate implements SimpleRestTemplate {
         if (headerList!=null && !tempHeaderList.isEmpty()) {
             tempHeaderList.addAll(headerList);
         }
-        String result = HttpClientUtil.post(clz,url,request,tempHeaderList,properties.getConnectTimeout(),properties.getSocketTimeout(),httpclient);
+        return tempHeaderList;
+    }
 
-        return result;
+    private CloseableHttpClient httpClient() {
+        CloseableHttpClient client = this.httpClient;
+        if (client != null)
+            return client;
+        synchronized (this) {
+            if (this.httpClient == null) {
+                initRequestConfig();
+                this.httpClient = build();
+            }
+            return this.httpClient;
+        }
     }
 
-    @Override
-    public String get(Class clz, String url, List<KV> headerList) {
+    private CloseableHttpAsyncClient httpAsyncClient() {
+        CloseableHttpAsyncClient client = this.httpAsyncClient;
+        if (client != null)
+            return client;
+        synchronized (this) {
+            if (this.httpAsyncClient == null) {
+                initRequestConfig();
+                CloseableHttpAsyncClient asyncClient = buildAsync();
+                asyncClient.start();
+                this.httpAsyncClient = asyncClient;
+            }
+            return this.httpAsyncClient;
+        }
+    }
+
+    private void initRequestConfig() {
+        if (this.requestConfig != null)
+            return;
+        this.requestConfig = RequestConfig.custom()
+                .setSocketTimeout(properties.getSocketTimeout())
+                .setConnectTimeout(properties.getConnectTimeout())
+                .setConnectionRequestTimeout(properties.getConnectionRequestTimeout())
+                .build();
+    }
+
+    private CloseableHttpClient build() {
+
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(
+                properties.getKeepAlive(), TimeUnit.MILLISECONDS);
+        connectionManager.setMaxTotal(properties.getMaxTotal());
+        connectionManager.setDefaultMaxPerRoute(properties.getMaxPerRoute());
+        connectionManager.setValidateAfterInactivity(properties.getValidateAfterInactivity());
+
+        HttpClientBuilder builder = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(keepAliveStrategy())
+                .evictExpiredConnections()
+                .evictIdleConnections(properties.getIdleTimeout(), TimeUnit.MILLISECONDS);
 
-        CloseableHttpClient httpclient = null;
         if (requestInterceptor != null && responseInterceptor != null) {
-            httpclient = httpClient(requestInterceptor, responseInterceptor);
-        } else {
-            httpclient = HttpClients.createDefault();
+            builder.addInterceptorFirst(requestInterceptor)
+                    .addInterceptorFirst(responseInterceptor);
         }
-        List<KV> tempHeaderList = new ArrayList<>();
-        for (HeaderInterceptor headerInterceptor : headerInterceptorList){
-            KV kv = headerInterceptor.apply(this);
-            tempHeaderList.add(kv);
+
+        if (logger.isInfoEnabled()) {
+            logger.info("Pooled http client: " + properties);
         }
 
-        if (headerList!=null && !tempHeaderList.isEmpty()) {
-            tempHeaderList.addAll(headerList);
+        return builder.build();
+    }
+
+    private CloseableHttpAsyncClient buildAsync() {
+
+        PoolingNHttpClientConnectionManager connectionManager;
+        try {
+            connectionManager = new PoolingNHttpClientConnectionManager(
+                    new DefaultConnectingIOReactor(IOReactorConfig.DEFAULT));
+        } catch (IOReactorException e) {
+            throw new RuntimeException("Async http client not built: " + e.getMessage());
+        }
+        connectionManager.setMaxTotal(properties.getMaxTotal());
+        connectionManager.setDefaultMaxPerRoute(properties.getMaxPerRoute());
+        scheduleEviction(connectionManager);
+
+        HttpAsyncClientBuilder builder = HttpAsyncClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(keepAliveStrategy());
+
+        if (requestInterceptor != null && responseInterceptor != null) {
+            builder.addInterceptorFirst(requestInterceptor)
+                    .addInterceptorFirst(responseInterceptor);
         }
-        return HttpClientUtil.get(clz,url, tempHeaderList,properties.getConnectTimeout(),properties.getSocketTimeout(),httpclient);
+
+        return builder.build();
+    }
+
+    /**
+     * as evictExpiredConnections and evictIdleConnections of the sync client, <br>
+     * not built in HttpAsyncClientBuilder
+     */
+    private void scheduleEviction(PoolingNHttpClientConnectionManager connectionManager) {
+        final long idleTimeout = properties.getIdleTimeout();
+        long period = Math.max(Math.min(idleTimeout, 10000), 1000);
+        this.asyncEviction = EVICTOR.scheduleWithFixedDelay(() -> {
+            try {
+                connectionManager.closeExpiredConnections();
+                connectionManager.closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+            } catch (Exception e) {
+                logger.info("Evicting async http connections failed: " + e.getMessage());
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
     }
 
+    private ConnectionKeepAliveStrategy keepAliveStrategy() {
+        final long keepAlive = properties.getKeepAlive();
+        return (response, context) -> {
+            long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return duration > 0 ? duration : keepAlive;
+        };
+    }
 
-    private  CloseableHttpClient httpClient(BraveHttpRequestInterceptor requestInterceptor,
-                                                 BraveHttpResponseInterceptor responseInterceptor) {
-        CloseableHttpClient httpclient = HttpClients.custom()
-                .addInterceptorFirst(requestInterceptor)
-                .addInterceptorFirst(responseInterceptor).build();
-        return httpclient;
+    /**
+     * the destroy method of the bean
+     */
+    public synchronized void close() {
+        Closeable old = this.httpClient;
+        this.httpClient = null;
+        close(old);
+        old = this.httpAsyncClient;
+        this.httpAsyncClient = null;
+        if (this.asyncEviction != null) {
+            this.asyncEviction.cancel(false);
+            this.asyncEviction = null;
+        }
+        close(old);
+    }
+
+    private void close(Closeable client) {
+        if (client == null)
+            return;
+        try {
+            client.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
     }
 
 }
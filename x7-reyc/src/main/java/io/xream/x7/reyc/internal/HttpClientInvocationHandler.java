@@ -16,12 +16,14 @@
  */
 package io.xream.x7.reyc.internal;
 
+import io.xream.x7.api.AsyncBackendService;
 import io.xream.x7.api.BackendService;
 import io.xream.x7.common.util.ExceptionUtil;
 import io.xream.x7.common.util.LoggerProxy;
 
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
 
 public class HttpClientInvocationHandler implements InvocationHandler {
 
@@ -44,25 +46,32 @@ public class HttpClientInvocationHandler implements InvocationHandler {
             LoggerProxy.debug(clzz,methodName +"(..) start....");
 
             R r = HttpClientResolver.r(clzz.getName(),methodName,args);
+            if (httpClientProxy.getBackend() != null) {
+                HttpClientResolver.undecodedIfNotSupported(r);
+            }
+
+            if (r.isAsync()) {
+                return invokeAsync(r, clzz, methodName, args);
+            }
 
             if (httpClientProxy.getBackend() == null) {
-                String result = HttpClientResolver.resolve(r,clzz);
-                return HttpClientResolver.toObject(r.getReturnType(),r.getGeneType(),result);
+                Object result = HttpClientResolver.resolve(r,clzz);
+                return HttpClientResolver.toObject(r,result);
             }
 
-            String result = HttpClientResolver.wrap(httpClientProxy, new BackendService<String>() {
+            Object result = HttpClientResolver.wrap(httpClientProxy, new BackendService<Object>() {
                 @Override
-                public String handle() {
+                public Object handle() {
                     return HttpClientResolver.resolve(r,clzz);
                 }
 
                 @Override
-                public String fallback() {
+                public Object fallback() {
                     return HttpClientResolver.fallback(clzz.getName(),methodName,args);
                 }
             });
 
-            return HttpClientResolver.toObject(r.getReturnType(),r.getGeneType(),result);
+            return HttpClientResolver.toObject(r,result);
 
         } catch (RuntimeException re){
             throw re;
@@ -73,4 +82,26 @@ public class HttpClientInvocationHandler implements InvocationHandler {
             LoggerProxy.debug(clzz,methodName + "(..) end, cost time: " + (endTime - startTime) + "ms");
         }
     }
+
+    private CompletableFuture<Object> invokeAsync(R r, Class clzz, String methodName, Object[] args) {
+
+        CompletableFuture<Object> future;
+        if (httpClientProxy.getBackend() == null) {
+            future = HttpClientResolver.resolveAsync(r,clzz);
+        } else {
+            future = HttpClientResolver.wrapAsync(httpClientProxy, new AsyncBackendService<Object>() {
+                @Override
+                public CompletableFuture<Object> handle() {
+                    return HttpClientResolver.resolveAsync(r,clzz);
+                }
+
+                @Override
+                public Object fallback() {
+                    return HttpClientResolver.fallback(clzz.getName(),methodName,args);
+                }
+            });
+        }
+
+        return future.thenApply(result -> HttpClientResolver.toObject(r,result));
+    }
 }
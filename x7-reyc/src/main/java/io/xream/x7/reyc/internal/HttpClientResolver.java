@@ -16,13 +16,16 @@
  */
 package io.xream.x7.reyc.internal;
 
+import io.xream.x7.api.AsyncBackendService;
 import io.xream.x7.api.BackendService;
 import io.xream.x7.common.bean.KV;
 import io.xream.x7.common.util.JsonX;
 import io.xream.x7.common.util.StringUtil;
+import io.xream.x7.exception.RemoteServiceException;
 import io.xream.x7.reyc.ReyClient;
 import io.xream.x7.reyc.Url;
 import io.xream.x7.reyc.api.GroupRouter;
+import io.xream.x7.reyc.api.ResponseDecoder;
 import io.xream.x7.reyc.api.ReyTemplate;
 import io.xream.x7.reyc.api.SimpleRestTemplate;
 import org.slf4j.Logger;
@@ -32,6 +35,7 @@ import org.springframework.web.bind.annotation.RequestMethod;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.regex.Pattern;
 
 public class HttpClientResolver {
@@ -100,16 +104,82 @@ public class HttpClientResolver {
         r.setUrl(url);
         r.setHeaderList(methodParsed.getHeaderList());
         r.setRouter(parsed.getGroupRouter());
+        r.setAsync(methodParsed.isAsync());
+        r.setDecoder(decoder(methodParsed.getReturnType(), methodParsed.getGeneType()));
         return r;
     }
 
-    protected static String resolve(R r, Class clz) {
+    /**
+     * null: String or Object returned, body read as String
+     */
+    private static ResponseDecoder decoder(Class<?> returnType, Class<?> geneType) {
+
+        if (returnType == null || returnType == void.class)
+            return in -> null;
+
+        if (returnType == Object.class || returnType == String.class)
+            return null;
+
+        if (returnType == List.class)
+            return in -> JsonX.toList(in, geneType);
+
+        return in -> JsonX.toObject(in, returnType);
+    }
+
+    protected static Object resolve(R r, Class clz) {
 
         RequestMethod requestMethod = r.getRequestMethod();
         Object[] args = r.getArgs();
-        String url = r.getUrl();
+        String url = url(r);
         List<KV> headerList = r.getHeaderList();
 
+        ResponseDecoder decoder = r.getDecoder();
+
+        Object result = null;
+        if (requestMethod == RequestMethod.POST) {
+
+            if (args != null && args.length > 0) {
+                 result = restTemplate.post(clz,url,args[0],headerList,decoder);
+            } else {
+                result = restTemplate.post(clz,url,null,headerList,decoder);
+            }
+        } else {
+            result = restTemplate.get(clz,url,headerList,decoder);
+        }
+
+        if (result instanceof String && StringUtil.isNullOrEmpty((String) result))
+            return null;
+
+
+        return result;
+    }
+
+    protected static CompletableFuture<Object> resolveAsync(R r, Class clz) {
+
+        RequestMethod requestMethod = r.getRequestMethod();
+        Object[] args = r.getArgs();
+        String url = url(r);
+        List<KV> headerList = r.getHeaderList();
+
+        ResponseDecoder decoder = r.getDecoder();
+
+        CompletableFuture<Object> future;
+        if (requestMethod == RequestMethod.POST) {
+            Object request = (args != null && args.length > 0) ? args[0] : null;
+            future = restTemplate.postAsync(clz,url,request,headerList,decoder);
+        } else {
+            future = restTemplate.getAsync(clz,url,headerList,decoder);
+        }
+
+        return future.thenApply(result ->
+                (result instanceof String && StringUtil.isNullOrEmpty((String) result)) ? null : result);
+    }
+
+    private static String url(R r) {
+
+        Object[] args = r.getArgs();
+        String url = r.getUrl();
+
         GroupRouter router = r.getRouter();
         if (router != null){
             Object arg = null;
@@ -119,26 +189,32 @@ public class HttpClientResolver {
             url = url.replace(router.replaceHolder(),router.replaceValue(arg));
         }
 
-        String result = null;
-        if (requestMethod == RequestMethod.POST) {
-
-            if (args != null && args.length > 0) {
-                 result = restTemplate.post(clz,url,args[0],headerList);
-            } else {
-                result = restTemplate.post(clz,url,null,headerList);
-            }
-        } else {
+        if (r.getRequestMethod() != RequestMethod.POST) {
             List<String> regExList = StringUtil.listByRegEx(url, pattern);
             int size = regExList.size();
             for (int i = 0; i < size; i++) {
                 url = url.replace(regExList.get(i), args[i].toString());
             }
-            result = restTemplate.get(clz,url,headerList);
         }
 
-        if (StringUtil.isNullOrEmpty(result))
-            return null;
+        return url;
+    }
+
+    /**
+     * String: not decoded by ResponseDecoder, parse it <br>
+     * RemoteExceptionResponse: non-2xx, not handled by ReyTemplate without backend, thrown as R4JTemplate does
+     */
+    protected static Object toObject(R r, Object result) {
+
+        if (result instanceof RemoteExceptionResponse) {
+            if (logger.isErrorEnabled()) {
+                logger.error(result.toString());
+            }
+            throw new RemoteServiceException(((RemoteExceptionResponse) result).getBody());
+        }
 
+        if (result instanceof String)
+            return toObject(r.getReturnType(), r.getGeneType(), (String) result);
 
         return result;
     }
@@ -165,15 +241,29 @@ public class HttpClientResolver {
     }
 
 
-    protected static String wrap(HttpClientProxy proxy, BackendService<String> backendService) {
+    /**
+     * the ReyTemplate handling only String, the response not decoded, read as String
+     */
+    protected static void undecodedIfNotSupported(R r) {
+        if (!reyTemplate.isDecodingSupported()) {
+            r.setDecoder(null);
+        }
+    }
+
+    protected static Object wrap(HttpClientProxy proxy, BackendService<Object> backendService) {
 
-        String result = reyTemplate.support(proxy.getBackend(),proxy.isRetry(),backendService);
+        Object result = reyTemplate.supportDecoded(proxy.getBackend(),proxy.isRetry(),backendService);
 
         return result;
     }
 
 
 
+    protected static CompletableFuture<Object> wrapAsync(HttpClientProxy proxy, AsyncBackendService<Object> backendService) {
+
+        return reyTemplate.supportAsync(proxy.getBackend(),proxy.isRetry(),backendService);
+    }
+
     public static String fallback(String intfName, String methodName, Object[] args) {
 
         ClientParsed parsed = ClientParser.get(intfName);
@@ -190,6 +280,8 @@ public class HttpClientResolver {
                 return null;
             }
             Object obj = method.invoke(parsed.getFallback(), args);
+            if (obj instanceof CompletableFuture)
+                obj = ((CompletableFuture) obj).getNow(null);
             if (obj == null)
                 return (String) obj;
             return obj.toString();
@@ -20,35 +20,43 @@ import io.xream.x7.common.bean.KV;
 import io.xream.x7.common.util.ExceptionUtil;
 import io.xream.x7.common.util.JsonX;
 import io.xream.x7.common.util.LoggerProxy;
+import io.xream.x7.reyc.api.ResponseDecoder;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
 import org.apache.http.conn.ConnectTimeoutException;
 import org.apache.http.conn.HttpHostConnectException;
 import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
 import org.apache.http.util.EntityUtils;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 
+/**
+ * the httpclient is pooled and shared, never close it here, <br>
+ * closing the response releases the connection back to the pool <br>
+ * async: the future completes on the io dispatcher thread <br>
+ * decoder != null: 2xx body decoded from the entity stream, other status: RemoteExceptionResponse
+ */
 public class HttpClientUtil {
 
 
-    protected static String post(Class clz, String url, Object param, List<KV> hearderList, int connectTimeoutMS, int socketTimeoutMS, CloseableHttpClient httpclient) {
+    protected static Object post(Class clz, String url, Object param, List<KV> hearderList, RequestConfig requestConfig, CloseableHttpClient httpclient, ResponseDecoder decoder) {
 
         HttpPost httpPost = new HttpPost(url);
 
-        RequestConfig requestConfig = RequestConfig.custom()
-                .setSocketTimeout(socketTimeoutMS)
-                .setConnectTimeout(connectTimeoutMS)
-                .setConnectionRequestTimeout(1000)
-                .build();//设置请求和传输超时时间
-
         httpPost.setConfig(requestConfig);
 
         if (hearderList != null) {
@@ -62,7 +70,7 @@ public class HttpClientUtil {
             json = JsonX.toJson(param);
         }
         HttpEntity entity = null;
-        String result = null;
+        Object result = null;
         try {
             entity = new ByteArrayEntity(json.getBytes("UTF-8"));
             httpPost.setHeader("Content-type", "application/json;charset=UTF-8");
@@ -70,12 +78,7 @@ public class HttpClientUtil {
             LoggerProxy.info(clz,"Request: " + httpPost.getURI() + " -H Content-type:application/json -d " +json);
             CloseableHttpResponse response = httpclient.execute(httpPost);
             try {
-                entity = response.getEntity();
-                if (entity != null) {
-                    result = EntityUtils.toString(entity, "UTF-8");
-                    LoggerProxy.info(clz,"Response: " + result);
-
-                }
+                result = read(clz, response, decoder);
             } finally {
                 response.close();
             }
@@ -93,12 +96,6 @@ public class HttpClientUtil {
             throw new RuntimeException(IOException.class.getName() + ": "+ExceptionUtil.getMessage(ioe));
         } catch (Exception e) {
             throw e;
-        } finally {
-            try {
-                httpclient.close();
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
         }
 
         return result;
@@ -107,16 +104,10 @@ public class HttpClientUtil {
 
 
 
-    protected static String get(Class clz, String url,  List<KV> hearderList, int connectTimeoutMS, int socketTimeoutMS, CloseableHttpClient httpclient) {
+    protected static Object get(Class clz, String url,  List<KV> hearderList, RequestConfig requestConfig, CloseableHttpClient httpclient, ResponseDecoder decoder) {
 
         HttpGet httpGet = new HttpGet(url);
 
-        RequestConfig requestConfig = RequestConfig.custom()
-                .setSocketTimeout(socketTimeoutMS)
-                .setConnectTimeout(connectTimeoutMS)
-                .setConnectionRequestTimeout(1000)
-                .build();//设置请求和传输超时时间
-
         httpGet.setConfig(requestConfig);
 
         if (hearderList != null) {
@@ -126,20 +117,14 @@ public class HttpClientUtil {
         }
 
 
-        HttpEntity entity = null;
-        String result = null;
+        Object result = null;
         try {
             httpGet.setHeader("Content-type", "application/json;charset=UTF-8");
 
             LoggerProxy.info(clz,"executing request " + httpGet.getURI());
             CloseableHttpResponse response = httpclient.execute(httpGet);
             try {
-                entity = response.getEntity();
-                if (entity != null) {
-                    result = EntityUtils.toString(entity, "UTF-8");
-                    LoggerProxy.info(clz,"Response content: " + result);
-
-                }
+                result = read(clz, response, decoder);
             } finally {
                 response.close();
             }
@@ -156,16 +141,128 @@ public class HttpClientUtil {
             throw new RuntimeException(ExceptionUtil.getMessage(ioe));
         } catch (Exception e) {
             throw e;
-        } finally {
-            try {
-                httpclient.close();
-            } catch (IOException e) {
-                e.printStackTrace();
+        }
+
+        return result;
+    }
+
+
+    protected static CompletableFuture<Object> postAsync(Class clz, String url, Object param, List<KV> hearderList, RequestConfig requestConfig, CloseableHttpAsyncClient httpclient, ResponseDecoder decoder) {
+
+        HttpPost httpPost = new HttpPost(url);
+
+        httpPost.setConfig(requestConfig);
+
+        if (hearderList != null) {
+            for (KV kv : hearderList) {
+                httpPost.addHeader(kv.getK(), kv.getV().toString());
+            }
+        }
+
+        String json = "";
+        if (param != null) {
+            json = JsonX.toJson(param);
+        }
+
+        httpPost.setHeader("Content-type", "application/json;charset=UTF-8");
+        httpPost.setEntity(new ByteArrayEntity(json.getBytes(StandardCharsets.UTF_8)));
+        LoggerProxy.info(clz,"Request: " + httpPost.getURI() + " -H Content-type:application/json -d " +json);
+
+        return execute(clz, url, httpPost, httpclient, decoder);
+    }
+
+    protected static CompletableFuture<Object> getAsync(Class clz, String url, List<KV> hearderList, RequestConfig requestConfig, CloseableHttpAsyncClient httpclient, ResponseDecoder decoder) {
+
+        HttpGet httpGet = new HttpGet(url);
+
+        httpGet.setConfig(requestConfig);
+
+        if (hearderList != null) {
+            for (KV kv : hearderList) {
+                httpGet.addHeader(kv.getK(), kv.getV().toString());
+            }
+        }
+
+        httpGet.setHeader("Content-type", "application/json;charset=UTF-8");
+        LoggerProxy.info(clz,"executing request " + httpGet.getURI());
+
+        return execute(clz, url, httpGet, httpclient, decoder);
+    }
+
+    private static CompletableFuture<Object> execute(Class clz, String url, HttpUriRequest request, CloseableHttpAsyncClient httpclient, ResponseDecoder decoder) {
+
+        CompletableFuture<Object> future = new CompletableFuture<>();
+
+        httpclient.execute(request, new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse response) {
+                try {
+                    future.complete(read(clz, response, decoder));
+                } catch (Exception e) {
+                    future.completeExceptionally(exception(url, e));
+                }
+            }
+
+            @Override
+            public void failed(Exception e) {
+                future.completeExceptionally(exception(url, e));
+            }
+
+            @Override
+            public void cancelled() {
+                future.cancel(false);
             }
+        });
+
+        return future;
+    }
+
+    private static Object read(Class clz, HttpResponse response, ResponseDecoder decoder) throws IOException {
+
+        HttpEntity entity = response.getEntity();
+        if (entity == null)
+            return null;
+
+        int status = response.getStatusLine().getStatusCode();
+        if (decoder == null || status < 200 || status >= 300) {
+            String result = EntityUtils.toString(entity, "UTF-8");
+            LoggerProxy.info(clz,"Response: " + result);
+            if (decoder == null)
+                return result;
+            return new RemoteExceptionResponse(status, result);
         }
 
+        if (entity.getContentLength() == 0)
+            return null;
+
+        Object result;
+        try (InputStream in = entity.getContent()) {
+            result = decoder.decode(in);
+        }
+        EntityUtils.consume(entity);
+        LoggerProxy.debug(clz, () -> "Response: " + JsonX.toJson(result));
         return result;
     }
 
+    private static RuntimeException exception(String url, Exception e) {
+        if (e instanceof HttpHostConnectException) {
+            String str = "org.apache.http.conn.HttpHostConnectException: Connect to " + url + " failed: Connection refused: connect";
+            return new RuntimeException(str);
+        }
+        if (e instanceof ConnectTimeoutException) {
+            String str = "org.apache.http.conn.ConnectTimeoutException: Connect to " + url + " failed: Connection timeout: connect";
+            return new RuntimeException(str);
+        }
+        if (e instanceof UnknownHostException) {
+            return new RuntimeException(UnknownHostException.class.getName() + ": "+ExceptionUtil.getMessage(e));
+        }
+        if (e instanceof IOException) {
+            return new RuntimeException(IOException.class.getName() + ": "+ExceptionUtil.getMessage(e));
+        }
+        if (e instanceof RuntimeException) {
+            return (RuntimeException) e;
+        }
+        return new RuntimeException(ExceptionUtil.getMessage(e));
+    }
 
 }
@@ -26,6 +26,18 @@ public class HttpProperties {
     private int connectTimeout = 6000;
     @Value("${http.socketTimeout:15000}")
     private int socketTimeout = 15000;
+    @Value("${http.connectionRequestTimeout:1000}")
+    private int connectionRequestTimeout = 1000;
+    @Value("${http.maxTotal:200}")
+    private int maxTotal = 200;
+    @Value("${http.maxPerRoute:50}")
+    private int maxPerRoute = 50;
+    @Value("${http.idleTimeout:30000}")
+    private long idleTimeout = 30000;
+    @Value("${http.keepAlive:60000}")
+    private long keepAlive = 60000;
+    @Value("${http.validateAfterInactivity:2000}")
+    private int validateAfterInactivity = 2000;
 
     public int getConnectTimeout() {
         return connectTimeout;
@@ -43,11 +55,65 @@ public class HttpProperties {
         this.socketTimeout = socketTimeout;
     }
 
+    public int getConnectionRequestTimeout() {
+        return connectionRequestTimeout;
+    }
+
+    public void setConnectionRequestTimeout(int connectionRequestTimeout) {
+        this.connectionRequestTimeout = connectionRequestTimeout;
+    }
+
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+
+    public void setMaxTotal(int maxTotal) {
+        this.maxTotal = maxTotal;
+    }
+
+    public int getMaxPerRoute() {
+        return maxPerRoute;
+    }
+
+    public void setMaxPerRoute(int maxPerRoute) {
+        this.maxPerRoute = maxPerRoute;
+    }
+
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(long idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public long getKeepAlive() {
+        return keepAlive;
+    }
+
+    public void setKeepAlive(long keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+
+    public int getValidateAfterInactivity() {
+        return validateAfterInactivity;
+    }
+
+    public void setValidateAfterInactivity(int validateAfterInactivity) {
+        this.validateAfterInactivity = validateAfterInactivity;
+    }
+
     @Override
     public String toString() {
         return "HttpProperties{" +
                 "connectTimeout=" + connectTimeout +
                 ", socketTimeout=" + socketTimeout +
+                ", connectionRequestTimeout=" + connectionRequestTimeout +
+                ", maxTotal=" + maxTotal +
+                ", maxPerRoute=" + maxPerRoute +
+                ", idleTimeout=" + idleTimeout +
+                ", keepAlive=" + keepAlive +
+                ", validateAfterInactivity=" + validateAfterInactivity +
                 '}';
     }
 }
@@ -28,6 +28,7 @@ public class MethodParsed {
     private Class<?> returnType;
     private Class<?> geneType;
     private List<KV> headerList;
+    private boolean async;
 
     public String getRequestMapping() {
         return requestMapping;
@@ -69,6 +70,14 @@ public class MethodParsed {
         this.geneType = geneType;
     }
 
+    public boolean isAsync() {
+        return async;
+    }
+
+    public void setAsync(boolean async) {
+        this.async = async;
+    }
+
     @Override
     public String toString() {
         return "MethodParsed{" +
@@ -77,6 +86,7 @@ public class MethodParsed {
                 ", returnType=" + returnType +
                 ", geneType=" + geneType +
                 ", headerList=" + headerList +
+                ", async=" + async +
                 '}';
     }
 }
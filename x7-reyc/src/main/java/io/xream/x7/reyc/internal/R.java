@@ -17,6 +17,7 @@
 package io.xream.x7.reyc.internal;
 
 import io.xream.x7.reyc.api.GroupRouter;
+import io.xream.x7.reyc.api.ResponseDecoder;
 import org.springframework.web.bind.annotation.RequestMethod;
 import io.xream.x7.common.bean.KV;
 
@@ -31,6 +32,8 @@ public class R {
     private RequestMethod requestMethod;
     private List<KV> headerList;
     private GroupRouter router;
+    private boolean async;
+    private ResponseDecoder decoder;
 
     public String getUrl() {
         return url;
@@ -88,6 +91,22 @@ public class R {
         this.router = router;
     }
 
+    public boolean isAsync() {
+        return async;
+    }
+
+    public void setAsync(boolean async) {
+        this.async = async;
+    }
+
+    public ResponseDecoder getDecoder() {
+        return decoder;
+    }
+
+    public void setDecoder(ResponseDecoder decoder) {
+        this.decoder = decoder;
+    }
+
     @Override
     public String toString() {
         return "R{" +
@@ -97,6 +116,7 @@ public class R {
                 ", args=" + Arrays.toString(args) +
                 ", requestMethod=" + requestMethod +
                 ", headerList=" + headerList +
+                ", async=" + async +
                 '}';
     }
 }
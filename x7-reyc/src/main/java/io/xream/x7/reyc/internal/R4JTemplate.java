@@ -24,6 +24,7 @@ import io.github.resilience4j.retry.Retry;
 import io.github.resilience4j.retry.RetryConfig;
 import io.github.resilience4j.retry.RetryRegistry;
 import io.vavr.control.Try;
+import io.xream.x7.api.AsyncBackendService;
 import io.xream.x7.api.BackendService;
 import io.xream.x7.common.util.ExceptionUtil;
 import io.xream.x7.common.util.StringUtil;
@@ -34,13 +35,20 @@ import io.xream.x7.reyc.api.ReyTemplate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.function.Supplier;
 
 /**
  *
  *  wrapped resilience4j: Retry,CircuitBreaker</br>
  *  Retry>CircuitBreaker>RateLimiter>Bulkhead  </br>
- *  but connection problem will retry immediately
+ *  but connection problem will retry immediately</br>
+ *  async: the same CircuitBreaker and Retry decorate the CompletionStage,
+ *  retry is scheduled, no thread waits
  */
 public class R4JTemplate implements ReyTemplate {
 
@@ -51,6 +59,12 @@ public class R4JTemplate implements ReyTemplate {
 
     private static ReyProperties reyProperties;
 
+    private final static ScheduledExecutorService retryScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "x7-reyc-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     public R4JTemplate(CircuitBreakerRegistry circuitBreakerRegistry, RetryRegistry retryRegistry, ReyProperties reyProperties) {
         this.circuitBreakerRegistry = circuitBreakerRegistry;
         this.retryRegistry = retryRegistry;
@@ -59,6 +73,16 @@ public class R4JTemplate implements ReyTemplate {
 
     @Override
     public String support(String circuitBreakerKey, boolean isRetry, BackendService<String> backendService) {
+        return supportDecoded(circuitBreakerKey, isRetry, backendService);
+    }
+
+    @Override
+    public boolean isDecodingSupported() {
+        return true;
+    }
+
+    @Override
+    public <T> T supportDecoded(String circuitBreakerKey, boolean isRetry, BackendService<T> backendService) {
 
         if (StringUtil.isNullOrEmpty(circuitBreakerKey)){
             circuitBreakerKey = "";
@@ -66,25 +90,13 @@ public class R4JTemplate implements ReyTemplate {
 
         final String backendName = circuitBreakerKey.equals("") ? "default" : circuitBreakerKey;
 
-        CircuitBreakerConfig circuitBreakerConfig = circuitBreakerRegistry.getConfiguration(backendName).orElse(circuitBreakerRegistry.getDefaultConfig());
-
-        CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker(backendName,circuitBreakerConfig);
-        Supplier<String> decoratedSupplier = CircuitBreaker
+        CircuitBreaker circuitBreaker = circuitBreaker(backendName);
+        Supplier<T> decoratedSupplier = CircuitBreaker
                 .decorateSupplier(circuitBreaker, backendService::handle);
 
         if (isRetry) {
-            RetryConfig retryConfig = retryRegistry.getConfiguration(backendName).orElse(retryRegistry.getDefaultConfig());
-            Retry retry = retryRegistry.retry(backendName,retryConfig);
+            Retry retry = retry(backendName);
             if (retry != null) {
-
-                retry.getEventPublisher()
-                        .onRetry(event -> {
-                            if (logger.isDebugEnabled()) {
-                                logger.debug(event.getEventType().toString() + "_" + event.getNumberOfRetryAttempts() + ": backend("
-                                        + backendName +")");
-                            }
-                        });
-
                 decoratedSupplier = Retry
                         .decorateSupplier(retry, decoratedSupplier);
             }
@@ -92,25 +104,97 @@ public class R4JTemplate implements ReyTemplate {
 
         String logStr = "Backend("+ backendName +")";
 
-        String result = Try.ofSupplier(decoratedSupplier)
+        T result = Try.ofSupplier(decoratedSupplier)
                 .recover(e ->
-                        hanleException(e, logStr, backendService)
+                        this.<T>hanleException(e, logStr, backendService::fallback)
                 ).get();
 
-        handleRemoteException(result,backendService);
+        handleRemoteException(result,backendService::fallback);
         return result;
     }
 
+    @Override
+    public <T> CompletableFuture<T> supportAsync(String circuitBreakerKey, boolean isRetry, AsyncBackendService<T> backendService) {
+
+        if (StringUtil.isNullOrEmpty(circuitBreakerKey)){
+            circuitBreakerKey = "";
+        }
+
+        final String backendName = circuitBreakerKey.equals("") ? "default" : circuitBreakerKey;
+
+        CircuitBreaker circuitBreaker = circuitBreaker(backendName);
+        Supplier<CompletionStage<T>> decoratedSupplier = CircuitBreaker
+                .decorateCompletionStage(circuitBreaker, backendService::handle);
+
+        if (isRetry) {
+            Retry retry = retry(backendName);
+            if (retry != null) {
+                decoratedSupplier = Retry
+                        .decorateCompletionStage(retry, retryScheduler, decoratedSupplier);
+            }
+        }
+
+        String logStr = "Backend("+ backendName +")";
+
+        CompletableFuture<T> future = new CompletableFuture<>();
+        CompletionStage<T> stage;
+        try {
+            stage = decoratedSupplier.get();
+        } catch (Throwable e) {
+            stage = failed(e);
+        }
+        stage.whenComplete((result, e) -> {
+            try {
+                if (e != null) {
+                    Throwable cause = (e instanceof CompletionException && e.getCause() != null) ? e.getCause() : e;
+                    hanleException(cause, logStr, backendService::fallback);
+                }
+                handleRemoteException(result, backendService::fallback);
+                future.complete(result);
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    private CircuitBreaker circuitBreaker(String backendName) {
+        CircuitBreakerConfig circuitBreakerConfig = circuitBreakerRegistry.getConfiguration(backendName).orElse(circuitBreakerRegistry.getDefaultConfig());
+        return circuitBreakerRegistry.circuitBreaker(backendName,circuitBreakerConfig);
+    }
+
+    private Retry retry(String backendName) {
+        RetryConfig retryConfig = retryRegistry.getConfiguration(backendName).orElse(retryRegistry.getDefaultConfig());
+        Retry retry = retryRegistry.retry(backendName,retryConfig);
+        if (retry != null) {
+
+            retry.getEventPublisher()
+                    .onRetry(event -> {
+                        if (logger.isDebugEnabled()) {
+                            logger.debug(event.getEventType().toString() + "_" + event.getNumberOfRetryAttempts() + ": backend("
+                                    + backendName +")");
+                        }
+                    });
+        }
+        return retry;
+    }
 
+    private static <T> CompletionStage<T> failed(Throwable e) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(e);
+        return future;
+    }
 
-    private String hanleException(Throwable e, String tag, BackendService<String> backendService) {
+
+
+    private <T> T hanleException(Throwable e, String tag, Supplier<?> fallback) {
 
         if (logger.isErrorEnabled()) {
             logger.error(tag + ": " + e.getMessage());
         }
 
         if (e instanceof CallNotPermittedException) {
-            Object obj = backendService.fallback();
+            Object obj = fallback.get();
             throw new BusyException(obj == null ? null : obj.toString());
         }
 
@@ -121,7 +205,7 @@ public class R4JTemplate implements ReyTemplate {
                 || str.contains("UnknownHostException")
                 || str.contains("IOException")
         ) {
-            Object obj = backendService.fallback();
+            Object obj = fallback.get();
             throw new ReyConnectException(tag + " : " + e.getMessage() + (obj == null ? "" : (" : " + obj.toString())));
         }
 
@@ -129,13 +213,35 @@ public class R4JTemplate implements ReyTemplate {
     }
 
 
-    private void handleRemoteException(String result,BackendService<String> backendService) {
+    /**
+     * non-2xx response: RemoteExceptionResponse, decided by status code, no scanning of decoded body <br>
+     * String: the body was not decoded, scanned for exception
+     */
+    private void handleRemoteException(Object obj,Supplier<?> fallback) {
+
+        if (obj == null)
+            return;
+
+        if (obj instanceof RemoteExceptionResponse) {
+            String body = ((RemoteExceptionResponse) obj).getBody();
+            if (body != null && body.contains(reyProperties.getRemoteException())) {
+                fallback.get();
+            }
+
+            if (logger.isErrorEnabled()) {
+                logger.error(obj.toString());
+            }
+
+            throw new RemoteServiceException(body);
+        }
 
-        if (result == null)
+        if (! (obj instanceof String))
             return;
 
+        String result = (String) obj;
+
         if (result.contains(reyProperties.getRemoteException())){
-            backendService.fallback();
+            fallback.get();
 
             if (logger.isErrorEnabled()) {
                 logger.error(result);
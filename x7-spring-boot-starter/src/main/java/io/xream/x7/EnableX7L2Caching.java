@@ -28,4 +28,10 @@ public @interface EnableX7L2Caching {
 
     int timeSeconds() default 60;
 
+    /**
+     * the namespace of cache cached in process, pushed by redis pub/sub<br>
+     * stale at most namespaceStaleMillis if the message lost, 0: not cached
+     */
+    long namespaceStaleMillis() default 1000;
+
 }
@@ -34,6 +34,8 @@ public class L2CacheStarter implements ImportBeanDefinitionRegistrar {
         Object obj = attributes.get("timeSeconds");
 
         DefaultL2CacheResolver.setValidSecond(Integer.valueOf(obj.toString()));
+        Object staleMillis = attributes.get("namespaceStaleMillis");
+        DefaultL2CacheResolver.setNamespaceStaleMillis(Long.valueOf(staleMillis.toString()));
         DefaultL2CacheResolver.enabled();
 
     }
@@ -17,6 +17,7 @@
 package io.xream.x7;
 
 import io.xream.x7.cache.*;
+import io.xream.x7.cache.customizer.L2CacheCodecCustomizer;
 import io.xream.x7.cache.customizer.L2CacheConsistencyCustomizer;
 import io.xream.x7.cache.customizer.L2CacheStorageCustomizer;
 import io.xream.x7.cache.customizer.L3CacheArgsToStringCustomizer;
@@ -57,8 +58,12 @@ public class RepositoryListener implements
 
         customizeCacheStorage(applicationStartedEvent);
 
+        customizeL2CacheCodec(applicationStartedEvent);
+
         customizeL2CacheConsistency(applicationStartedEvent);
 
+        customizeL2NearCache(applicationStartedEvent);
+
         customizeIdGeneratorPolicy(applicationStartedEvent);
 
         customizeDataTransform(applicationStartedEvent);
@@ -200,6 +205,23 @@ public class RepositoryListener implements
 
     }
 
+    private void customizeL2CacheCodec(ApplicationStartedEvent applicationStartedEvent) {
+        L2CacheCodecCustomizer customizer = null;
+        try {
+            customizer = applicationStartedEvent.getApplicationContext().getBean(L2CacheCodecCustomizer.class);
+        } catch (Exception e) {
+
+        }
+
+        if (customizer == null || customizer.customize() == null)
+            return;
+
+        L2CacheResolver levelTwoCacheResolver = applicationStartedEvent.getApplicationContext().getBean(L2CacheResolver.class);
+        if (levelTwoCacheResolver == null)
+            return;
+        levelTwoCacheResolver.setCodec(customizer.customize());
+    }
+
     private void customizeL2CacheConsistency(ApplicationStartedEvent applicationStartedEvent) {
         L2CacheConsistencyCustomizer customizer = null;
         try {
@@ -217,6 +239,23 @@ public class RepositoryListener implements
         levelTwoCacheResolver.setL2CacheConsistency(customizer.customize());
     }
 
+    private void customizeL2NearCache(ApplicationStartedEvent applicationStartedEvent) {
+        L2NearCacheBroadcaster broadcaster = null;
+        try {
+            broadcaster = applicationStartedEvent.getApplicationContext().getBean(L2NearCacheBroadcaster.class);
+        } catch (Exception e) {
+
+        }
+
+        if (broadcaster == null)
+            return;
+
+        L2CacheResolver levelTwoCacheResolver = applicationStartedEvent.getApplicationContext().getBean(L2CacheResolver.class);
+        if (!(levelTwoCacheResolver instanceof DefaultL2CacheResolver))
+            return;
+        ((DefaultL2CacheResolver) levelTwoCacheResolver).getNearCache().setBroadcaster(broadcaster);
+    }
+
 
     private void customizeIdGeneratorPolicy(ApplicationStartedEvent applicationStartedEvent) {
         IdGeneratorPolicyCustomizer customizer = null;
@@ -28,6 +28,7 @@ import io.xream.x7.repository.dao.DaoImpl;
 import io.xream.x7.repository.dao.SqlCriteriaParser;
 import io.xream.x7.repository.id.DefaultIdGeneratorService;
 import io.xream.x7.repository.id.IdGeneratorService;
+import io.xream.x7.repository.internal.GlobalIdPersistencePolicy;
 import io.xream.x7.repository.mapper.Dialect;
 import io.xream.x7.repository.mapper.MapperFactory;
 import io.xream.x7.repository.transform.DataTransform;
@@ -92,7 +93,11 @@ public class RepositoryStarter  {
         Dao dao =  null;
         if (driverClassName.toLowerCase().contains("mysql")
                 || driverClassName.toLowerCase().contains("oracle")) {
-            dao = new DaoImpl();
+            DaoImpl daoImpl = new DaoImpl();
+            daoImpl.setBatchSize(environment.getProperty("x7.repository.batch-size", Integer.class, 500));
+            daoImpl.setBatchParallelism(environment.getProperty("x7.repository.batch-parallelism", Integer.class, 1));
+            daoImpl.setBatchMaxBytes(environment.getProperty("x7.repository.batch-max-bytes", Integer.class, 1048576));
+            dao = daoImpl;
         }
         return dao;
     }
@@ -106,8 +111,10 @@ public class RepositoryStarter  {
 
     @Bean
     @Order(6)
-    public IdGeneratorService idGenerator(){
+    public IdGeneratorService idGenerator(Environment environment){
         DefaultIdGeneratorService idGenerator = new DefaultIdGeneratorService();
+        idGenerator.setSegmentSize(environment.getProperty("x7.id.segment-size", Integer.class, 100));
+        idGenerator.setSegmentListener((clzName, ceiling) -> GlobalIdPersistencePolicy.persist(ceiling, clzName));
         return idGenerator;
     }
 
@@ -33,7 +33,7 @@ import org.springframework.context.annotation.Import;
 public class ReyClientConfig {
 
 
-    @Bean
+    @Bean(destroyMethod = "close")
     public SimpleRestTemplate simpleRestTemplate(HttpProperties properies, ReyTemplate reyTemplate) {
         SimpleRestTemplate simpleRestTemplate = new DefaultRestTemplate(properies,null,null);
         HttpClientResolver.init(reyTemplate, simpleRestTemplate);